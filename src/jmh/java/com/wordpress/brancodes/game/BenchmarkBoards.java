@@ -0,0 +1,33 @@
+package com.wordpress.brancodes.game;
+
+import java.util.Random;
+
+/**
+ * the same boards on every run and every commit, so results can be compared
+ */
+final class BenchmarkBoards {
+
+	static final long SEED = 380;
+
+	private BenchmarkBoards() {
+	}
+
+	/**
+	 * @param openingMoves random moves played first so the board isn't empty, taken from the same seed
+	 */
+	static GameBoard seeded(final int size, final int openingMoves) {
+		final GameBoard gameBoard = new GameBoard(size, size, SEED);
+		final Random random = new Random(SEED);
+		for (int i = 0; i < openingMoves && !gameBoard.complete(); i++)
+			gameBoard.move(i % 2 + 1, random.nextInt(gameBoard.getOpenEdgeAmount()));
+		return gameBoard;
+	}
+
+	/**
+	 * @return player to move after the opening moves
+	 */
+	static int playerToMove(final int openingMoves) {
+		return openingMoves % 2 + 1;
+	}
+
+}
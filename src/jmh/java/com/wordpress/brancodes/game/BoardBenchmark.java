@@ -0,0 +1,96 @@
+package com.wordpress.brancodes.game;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the board operations every searched node pays for
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+	private static final int OPENING_MOVES = 4;
+
+	@Param({"2", "3", "4", "5"})
+	public int size;
+
+	private GameBoard gameBoard;
+	private GameBoard copy; // equal but not the same board
+	private int player;
+	private int[] game; // open edge index of every move of one whole game
+
+	@Setup
+	public void setup() {
+		gameBoard = BenchmarkBoards.seeded(size, OPENING_MOVES);
+		copy = gameBoard.clone();
+		player = BenchmarkBoards.playerToMove(OPENING_MOVES);
+		final GameBoard played = new GameBoard(size, size, BenchmarkBoards.SEED);
+		final Random random = new Random(BenchmarkBoards.SEED);
+		game = new int[played.getOpenEdgeAmount()];
+		int moves = 0;
+		while (!played.complete()) {
+			game[moves] = random.nextInt(played.getOpenEdgeAmount());
+			played.move(moves % 2 + 1, game[moves++]);
+		}
+		game = Arrays.copyOf(game, moves);
+	}
+
+	@Benchmark
+	public GameBoard cloneBoard() {
+		return gameBoard.clone();
+	}
+
+	/**
+	 * on a fresh copy every time, otherwise the children are already cached
+	 */
+	@Benchmark
+	public Object expand() {
+		return gameBoard.clone().expand(player);
+	}
+
+	@Benchmark
+	public void expandIter(final Blackhole blackhole) {
+		final Iterator<GameBoard> children = gameBoard.clone().expandIter(player);
+		while (children.hasNext())
+			blackhole.consume(children.next());
+	}
+
+	@Benchmark
+	public void expandIterOrdered(final Blackhole blackhole) {
+		final Iterator<GameBoard> children = gameBoard.clone().expandIter(player, -1, MoveOrdering.SAFE_FIRST);
+		while (children.hasNext())
+			blackhole.consume(children.next());
+	}
+
+	/**
+	 * every move looks for captures, so a whole game goes through refreshTileCaptures once per edge
+	 */
+	@Benchmark
+	public GameBoard playGame() {
+		final GameBoard played = new GameBoard(size, size, BenchmarkBoards.SEED);
+		for (int i = 0; i < game.length; i++)
+			played.move(i % 2 + 1, game[i]);
+		return played;
+	}
+
+	@Benchmark
+	public int hashCodeBoard() {
+		return gameBoard.hashCode();
+	}
+
+	@Benchmark
+	public boolean equalsBoard() {
+		return gameBoard.equals(copy);
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.wordpress.brancodes.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * counts every board of the full game tree a few plies deep, no pruning or memoization, like chess perft.
+ * the count only changes if the move rules do, so a run on another commit checks the rules as well as the speed
+ * <p>
+ * run main to print the counts
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PerftBenchmark {
+
+	private static final int OPENING_MOVES = 2;
+
+	@Param({"2", "3", "4", "5"})
+	public int size;
+
+	private GameBoard gameBoard;
+	private int depth;
+
+	/**
+	 * boards counted per invocation, reported by JMH as a rate next to the time
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Nodes {
+
+		public long nodes;
+
+	}
+
+	@Setup
+	public void setup() {
+		gameBoard = BenchmarkBoards.seeded(size, OPENING_MOVES);
+		depth = depth(size);
+	}
+
+	@Benchmark
+	public long perft(final Nodes nodes) {
+		final long count = perft(gameBoard.clone(), BenchmarkBoards.playerToMove(OPENING_MOVES), depth);
+		nodes.nodes += count;
+		return count;
+	}
+
+	private static int depth(final int size) {
+		return switch (size) {
+			case 2 -> 6;
+			case 3 -> 5;
+			case 4 -> 4;
+			default -> 3;
+		};
+	}
+
+	/**
+	 * @return amount of boards exactly depth plies below this one, or this one if the game ends before
+	 */
+	static long perft(final GameBoard gameBoard, final int player, final int depth) {
+		if (depth == 0 || gameBoard.complete())
+			return 1;
+		long count = 0;
+		for (int pos = 0; pos < gameBoard.getOpenEdgeAmount(); pos++) { // not expand, which would keep the whole tree
+			final GameBoard child = gameBoard.clone();
+			child.move(player, pos);
+			count += perft(child, player == 1 ? 2 : 1, depth - 1);
+		}
+		return count;
+	}
+
+	public static void main(String[] args) {
+		for (int size = 2; size <= 5; size++)
+			System.out.printf("%dx%d depth %d: %d\n", size, size, depth(size),
+							  perft(BenchmarkBoards.seeded(size, OPENING_MOVES), BenchmarkBoards.playerToMove(OPENING_MOVES), depth(size)));
+	}
+
+}
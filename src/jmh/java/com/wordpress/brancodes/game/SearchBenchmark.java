@@ -0,0 +1,61 @@
+package com.wordpress.brancodes.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * one fixed depth move of {@link MinimaxPlayer}, the depth picked per size so a move takes milliseconds
+ * <p>
+ * run with {@code -prof gc} to see the allocation per move, searching in place should only allocate for the root
+ * and the endgame solver
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+	private static final int OPENING_MOVES = 2;
+
+	@Param({"2", "3", "4", "5"})
+	public int size;
+
+	@Param({"true", "false"})
+	public boolean inPlace;
+
+	private GameBoard gameBoard;
+	private MinimaxPlayer player;
+
+	@Setup
+	public void setup() {
+		gameBoard = BenchmarkBoards.seeded(size, OPENING_MOVES);
+		final int layers = switch (size) {
+			case 2 -> gameBoard.getMaxDepth(); // the whole game
+			case 3 -> 7;
+			case 4 -> 5;
+			default -> 4;
+		};
+		player = new MinimaxPlayer(BenchmarkBoards.playerToMove(OPENING_MOVES), layers, 8L << 20);
+		player.setSearchInPlace(inPlace);
+	}
+
+	/**
+	 * the table keeps its entries between moves, and every invocation searches the same position, so without this
+	 * every move after the first would only read back the first one's result
+	 */
+	@Setup(Level.Invocation)
+	public void clearTable() {
+		player.clearTable();
+	}
+
+	@Benchmark
+	public GameBoard move() {
+		final GameBoard played = gameBoard.clone();
+		player.move(played);
+		return played;
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.wordpress.brancodes.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * immutable per-game data shared by every {@link GameBoard} of one game: the size, the tile values
+ * and the edge/tile adjacency of the packed bit representation
+ * <p>
+ * edges are numbered top left to bottom right, one row of horizontals followed by one row of verticals,
+ * which is the same order that {@link GameBoard#move(int, int)} counts open edges in
+ */
+final class BoardLayout {
+
+	static final int TOP = 0, RIGHT = 1, BOTTOM = 2, LEFT = 3;
+
+	final int width;
+	final int height;
+	final int tileCount;
+	final int edgeCount;
+	final int edgeWords;
+	final int tileWords;
+	final int fillerOffset; // word offsets into GameBoard's bits, edges start at 0
+	final int owner1Offset;
+	final int owner2Offset;
+	final int wordCount;
+	final byte[] tileValues; // tile i * width + j
+	final int[] edgeTiles; // 2 per edge, the tile above/left then below/right, -1 if off the board
+	final int[] tileEdges; // 4 per tile, in TOP RIGHT BOTTOM LEFT order
+	final long[] edgeKeys; // zobrist keys, the same for every game of this size so keys stay valid between runs
+	final long[] ownerKeys; // 2 per tile, one for each player
+	final long fingerprint; // of the size and tile values, which the keys leave out
+	final int[][] symmetryEdges; // grid symmetries that map the tile values onto themselves, identity first
+	final int[][] symmetryTiles;
+	final int[][] inverseSymmetryEdges;
+
+	static final long START_KEY = mix(-1);
+	static final long SIDE_KEY = mix(-2); // toggled by every move so the side to move is part of the key
+
+	BoardLayout(final int height, final int width, final byte[] tileValues) {
+		this.width = width;
+		this.height = height;
+		tileCount = height * width;
+		edgeCount = height * (2 * width + 1) + width;
+		edgeWords = words(edgeCount);
+		tileWords = words(tileCount);
+		fillerOffset = edgeWords;
+		owner1Offset = 2 * edgeWords;
+		owner2Offset = owner1Offset + tileWords;
+		wordCount = owner2Offset + tileWords;
+		this.tileValues = tileValues;
+		edgeTiles = new int[2 * edgeCount];
+		Arrays.fill(edgeTiles, -1);
+		tileEdges = new int[4 * tileCount];
+		for (int i = 0; i < height; i++)
+			for (int j = 0; j < width; j++) {
+				final int tile = tile(i, j);
+				link(tile, TOP, horizontal(i, j), 1);
+				link(tile, RIGHT, vertical(i, j + 1), 0);
+				link(tile, BOTTOM, horizontal(i + 1, j), 0);
+				link(tile, LEFT, vertical(i, j), 1);
+			}
+		edgeKeys = new long[edgeCount];
+		for (int edge = 0; edge < edgeCount; edge++)
+			edgeKeys[edge] = mix(edge);
+		ownerKeys = new long[2 * tileCount];
+		for (int i = 0; i < 2 * tileCount; i++)
+			ownerKeys[i] = mix(1L << 32 | i);
+		long fingerprint = mix((long) height << 32 | width);
+		for (final byte tileValue : tileValues)
+			fingerprint = mix(fingerprint ^ tileValue);
+		this.fingerprint = fingerprint;
+		final List<int[]> edgeMaps = new ArrayList<>();
+		final List<int[]> tileMaps = new ArrayList<>();
+		for (int symmetry = 0; symmetry < (height == width ? 8 : 4); symmetry++) {
+			final int[] tileMap = new int[tileCount];
+			for (int tile = 0; tile < tileCount; tile++) {
+				final int i = tile / width, j = tile % width;
+				final int a = transform(symmetry, i, j), b = transform(symmetry, i + 1, j + 1);
+				tileMap[tile] = tile(Math.min(a >> 16, b >> 16), Math.min(a & 0xFFFF, b & 0xFFFF));
+			}
+			if (!preservesTileValues(tileMap))
+				continue;
+			final int[] edgeMap = new int[edgeCount];
+			for (int edge = 0; edge < edgeCount; edge++) {
+				final int i = edge / (2 * width + 1), j = edge % (2 * width + 1);
+				final boolean vertical = j >= width;
+				final int a = transform(symmetry, i, vertical ? j - width : j);
+				final int b = vertical ? transform(symmetry, i + 1, j - width) : transform(symmetry, i, j + 1);
+				edgeMap[edge] = (a >> 16) == (b >> 16)
+								? horizontal(a >> 16, Math.min(a & 0xFFFF, b & 0xFFFF))
+								: vertical(Math.min(a >> 16, b >> 16), a & 0xFFFF);
+			}
+			edgeMaps.add(edgeMap);
+			tileMaps.add(tileMap);
+		}
+		symmetryEdges = edgeMaps.toArray(new int[0][]);
+		symmetryTiles = tileMaps.toArray(new int[0][]);
+		inverseSymmetryEdges = new int[symmetryEdges.length][edgeCount];
+		for (int symmetry = 0; symmetry < symmetryEdges.length; symmetry++)
+			for (int edge = 0; edge < edgeCount; edge++)
+				inverseSymmetryEdges[symmetry][symmetryEdges[symmetry][edge]] = edge;
+	}
+
+	/**
+	 * move a dot of the grid, (0, 0) to (height, width), by one of the grid's symmetries;
+	 * the last 4 are rotations and diagonal flips which only fit square boards
+	 * @return the new row in the high half and column in the low half
+	 */
+	private int transform(final int symmetry, final int row, final int column) {
+		return switch (symmetry) {
+			case 0 -> row << 16 | column;
+			case 1 -> (height - row) << 16 | (width - column); // half turn
+			case 2 -> (height - row) << 16 | column; // flip top to bottom
+			case 3 -> row << 16 | (width - column); // flip left to right
+			case 4 -> column << 16 | row; // flip on the main diagonal
+			case 5 -> (width - column) << 16 | (height - row); // flip on the other diagonal
+			case 6 -> column << 16 | (height - row); // quarter turn
+			default -> (width - column) << 16 | row; // three quarter turn
+		};
+	}
+
+	private boolean preservesTileValues(final int[] tileMap) {
+		for (int tile = 0; tile < tileCount; tile++)
+			if (tileValues[tileMap[tile]] != tileValues[tile])
+				return false;
+		return true;
+	}
+
+	/**
+	 * splitmix64 finalizer, deterministic stand-in for a seeded random key
+	 */
+	static long mix(final long seed) {
+		long z = seed * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+		z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+		return z ^ z >>> 31;
+	}
+
+	private void link(final int tile, final int side, final int edge, final int slot) {
+		tileEdges[4 * tile + side] = edge;
+		edgeTiles[2 * edge + slot] = tile;
+	}
+
+	private static int words(final int bits) {
+		return Math.max(1, (bits + 63) >>> 6);
+	}
+
+	int tile(final int i, final int j) {
+		return i * width + j;
+	}
+
+	int horizontal(final int i, final int j) {
+		return i * (2 * width + 1) + j;
+	}
+
+	int vertical(final int i, final int j) {
+		return i * (2 * width + 1) + width + j;
+	}
+
+	boolean isVertical(final int edge) {
+		return edge % (2 * width + 1) >= width;
+	}
+
+	int edgeAt(final int tile, final int side) {
+		return tileEdges[4 * tile + side];
+	}
+
+	long ownerKey(final int tile, final int player) {
+		return ownerKeys[2 * tile + player - 1];
+	}
+
+	int tileValue(final int tile) {
+		return tileValues[tile];
+	}
+
+}
@@ -0,0 +1,304 @@
+package com.wordpress.brancodes.game;
+
+import java.util.Arrays;
+
+/**
+ * exact value of a late position, once every empty tile has at least two sides drawn and there are no safe moves left
+ * <p>
+ * then the empty tiles form chains: paths of tiles joined by open edges, each end either closed or open to the outside
+ * of the board. an area is captured as soon as it has no open edge leading off the board, so a chain always has one
+ * or two open ends and a loop, with none, was already captured when it closed. drawing an edge only splits or closes
+ * the chain it is in, so a position is just its chains (tile values, and the row-major order of the tiles which
+ * decides where a captured chain gets its filler edges) and how many spare edges inside captured areas are left
+ * to pass with. values of those are memoized by a hash of the chains, they don't depend on the board they came from
+ * <p>
+ * every chain a move leaves is a piece of a chain of the position it started from, so a chain is only where its
+ * first and last tile are in one buffer of the starting chains' tiles, and the search draws and undraws edges
+ * in one array of chains. it keeps its buffers between positions, one solver for each thread
+ */
+final class EndgameSolver {
+
+	static final int UNSOLVED = Integer.MIN_VALUE;
+
+	private static final int MAX_CHAINS = 8; // the positions to solve grow with the product of the chains' lengths
+	private static final long NO_CHAIN = -1L;
+	private static final long ONE_EXIT = BoardLayout.mix(1), TWO_EXITS = BoardLayout.mix(2); // hash seeds
+
+	private int[] tiles = new int[0]; // the starting chains one after another, each from one end to the other
+	private int[] tileValues; // <index in tiles, value of the tile>
+	private boolean[] visited; // <tile, in a chain already>
+	private long[] chains; // <chain, its first tile's index in tiles << 32 | its last's << 1 | 1 if both ends are open>
+	private long[] hashes; // <chain, hash of its tile values and their order>
+	private int[] ranks; // <tile of the chain being hashed, how many of its tiles come before it in row-major order>
+
+	/**
+	 * @return if every empty tile has at least two sides drawn, which only takes as long as finding one that hasn't
+	 */
+	static boolean onlyChains(final GameBoard gameBoard) {
+		final BoardLayout layout = gameBoard.getLayout();
+		for (int tile = 0; tile < layout.tileCount; tile++)
+			if (gameBoard.getOwner(tile) == 0 && gameBoard.getDrawnSides(tile) < 2)
+				return false;
+		return true;
+	}
+
+	/**
+	 * @param gameBoard a board that is {@link #onlyChains only chains}
+	 * @param known values of positions solved before, shared by every thread
+	 * @return how many points more than the other player the player to move gets for the rest of the game,
+	 * both playing perfectly, or {@link #UNSOLVED} if there are loops or too many chains
+	 */
+	int solve(final GameBoard gameBoard, final TranspositionTable known) {
+		final BoardLayout layout = gameBoard.getLayout();
+		if (tiles.length < layout.tileCount) {
+			tiles = new int[layout.tileCount];
+			tileValues = new int[layout.tileCount];
+			visited = new boolean[layout.tileCount];
+			chains = new long[layout.tileCount];
+			hashes = new long[layout.tileCount];
+			ranks = new int[layout.tileCount];
+		}
+		Arrays.fill(visited, false);
+		int count = 0;
+		int used = 0;
+		long chainSum = 0;
+		for (int tile = 0; tile < layout.tileCount; tile++) {
+			if (visited[tile] || gameBoard.getOwner(tile) != 0)
+				continue;
+			if (count == MAX_CHAINS)
+				return UNSOLVED;
+			final long chain = chainFrom(gameBoard, tile, used);
+			if (chain == NO_CHAIN)
+				return UNSOLVED;
+			chains[count] = chain;
+			hashes[count] = hash(chain);
+			chainSum += hashes[count++];
+			used += length(chain);
+		}
+		int passes = 0;
+		for (int edge = 0; edge < layout.edgeCount; edge++)
+			if (gameBoard.isOpen(edge) && gameBoard.getMostDrawnSides(edge) == -1)
+				passes++;
+		return value(count, chainSum, passes, known);
+	}
+
+	/**
+	 * walk to one end of the chain through a tile, then along it to the other end, putting its tiles in the buffer
+	 * @param from where in the buffer its tiles go
+	 * @return the chain, with the closed end first if it has one, or {@link #NO_CHAIN} if it is a loop or closed at both ends
+	 */
+	private long chainFrom(final GameBoard gameBoard, final int start, final int from) {
+		int end = start;
+		int previous = -1;
+		do {
+			final int next = nextTile(gameBoard, end, previous);
+			if (next == -1)
+				break;
+			previous = end;
+			end = next;
+		} while (end != start);
+		if (end == start && previous != -1)
+			return NO_CHAIN;
+		int to = from;
+		previous = -1;
+		for (int tile = end; tile != -1; ) {
+			visited[tile] = true;
+			tiles[to] = tile;
+			tileValues[to++] = gameBoard.getLayout().tileValue(tile);
+			final int next = nextTile(gameBoard, tile, previous);
+			previous = tile;
+			tile = next;
+		}
+		final int last = to - 1;
+		final boolean startOpen = exits(gameBoard, tiles[from]) > 0;
+		final boolean endOpen = last == from ? exits(gameBoard, tiles[from]) > 1 : exits(gameBoard, tiles[last]) > 0;
+		if (!startOpen && !endOpen)
+			return NO_CHAIN; // enclosed, it would have been captured
+		if (startOpen && endOpen)
+			return chain(from, last, true);
+		return startOpen ? chain(last, from, false) : chain(from, last, false);
+	}
+
+	/**
+	 * @return the empty tile joined to this one by an open edge, other than the one before it, or -1
+	 */
+	private static int nextTile(final GameBoard gameBoard, final int tile, final int previous) {
+		final BoardLayout layout = gameBoard.getLayout();
+		for (int side = 0; side < 4; side++) {
+			final int edge = layout.edgeAt(tile, side);
+			if (!gameBoard.isOpen(edge))
+				continue;
+			final int neighbor = layout.edgeTiles[2 * edge] == tile ? layout.edgeTiles[2 * edge + 1] : layout.edgeTiles[2 * edge];
+			if (neighbor != -1 && neighbor != previous)
+				return neighbor;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return open edges of the tile leading off the board
+	 */
+	private static int exits(final GameBoard gameBoard, final int tile) {
+		final BoardLayout layout = gameBoard.getLayout();
+		int exits = 0;
+		for (int side = 0; side < 4; side++) {
+			final int edge = layout.edgeAt(tile, side);
+			if (gameBoard.isOpen(edge) && (layout.edgeTiles[2 * edge] == -1 || layout.edgeTiles[2 * edge + 1] == -1))
+				exits++;
+		}
+		return exits;
+	}
+
+	/**
+	 * negamax over every edge of every different chain, and one spare edge if any are left
+	 * @param count chains of the position, the first ones of {@link #chains}
+	 * @param chainSum sum of their hashes, which doesn't depend on their order
+	 */
+	private int value(final int count, final long chainSum, final int passes, final TranspositionTable known) {
+		if (count == 0)
+			return 0; // every tile is captured, the game is over
+		final long key = BoardLayout.mix(chainSum ^ passes);
+		final long entry = known.probe(key);
+		if (entry != TranspositionTable.MISS)
+			return TranspositionTable.score(entry);
+		int best = passes > 0 ? -value(count, chainSum, passes - 1, known) : Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			if (alikeBefore(i))
+				continue;
+			final long chain = chains[i];
+			final long others = chainSum - hashes[i];
+			final int first = first(chain), last = last(chain), step = first <= last ? 1 : -1, length = length(chain);
+			if (bothOpen(chain)) {
+				// closing an exit leaves a chain with one, splitting it leaves two
+				best = Math.max(best, -replaced(i, count, others, chain(first, last, false), passes, known));
+				best = Math.max(best, -replaced(i, count, others, chain(last, first, false), passes, known));
+				for (int split = 1; split < length; split++)
+					best = Math.max(best, -split(i, count, others, chain(first + (split - 1) * step, first, false),
+												 chain(first + split * step, last, false), passes, known));
+			} else {
+				// closing the exit captures the whole chain, splitting it captures the closed part
+				best = Math.max(best, points(first, step, length) - removed(i, count, others,
+																	passes + spareEdges(first, step, length), known));
+				for (int split = 1; split < length; split++)
+					best = Math.max(best, points(first, step, split)
+										  - replaced(i, count, others, chain(first + split * step, last, false),
+													 passes + spareEdges(first, step, split), known));
+			}
+		}
+		known.store(key, best, 0, TranspositionTable.EXACT, -1);
+		return best;
+	}
+
+	/**
+	 * @return if a chain before this one is the same, so drawing in either leads to the same position
+	 */
+	private boolean alikeBefore(final int i) {
+		for (int other = 0; other < i; other++)
+			if (hashes[other] == hashes[i])
+				return true;
+		return false;
+	}
+
+	private int replaced(final int i, final int count, final long others, final long chain, final int passes,
+						 final TranspositionTable known) {
+		final long old = chains[i], oldHash = hashes[i];
+		chains[i] = chain;
+		hashes[i] = hash(chain);
+		final int value = value(count, others + hashes[i], passes, known);
+		chains[i] = old;
+		hashes[i] = oldHash;
+		return value;
+	}
+
+	private int split(final int i, final int count, final long others, final long chain, final long added,
+					  final int passes, final TranspositionTable known) {
+		chains[count] = added;
+		hashes[count] = hash(added);
+		return replaced(i, count + 1, others + hashes[count], chain, passes, known);
+	}
+
+	/**
+	 * the last chain takes its place, the position below can use the last one's for a chain it splits off
+	 */
+	private int removed(final int i, final int count, final long others, final int passes, final TranspositionTable known) {
+		final long old = chains[i], oldHash = hashes[i];
+		chains[i] = chains[count - 1];
+		hashes[i] = hashes[count - 1];
+		final int value = value(count - 1, others, passes, known);
+		chains[count - 1] = chains[i];
+		hashes[count - 1] = hashes[i];
+		chains[i] = old;
+		hashes[i] = oldHash;
+		return value;
+	}
+
+	/**
+	 * tiles are hashed by their value and their rank among the chain's tiles in row-major order, so equal chains from
+	 * different places are the same, and a chain with both ends open the same way around
+	 */
+	private long hash(final long chain) {
+		final int first = first(chain), last = last(chain), step = first <= last ? 1 : -1, length = length(chain);
+		for (int i = 0; i < length; i++) {
+			int rank = 0;
+			for (int other = 0; other < length; other++)
+				if (tiles[first + other * step] < tiles[first + i * step])
+					rank++;
+			ranks[i] = rank;
+		}
+		final long seed = bothOpen(chain) ? TWO_EXITS : ONE_EXIT;
+		long forward = seed;
+		for (int i = 0; i < length; i++)
+			forward = BoardLayout.mix(BoardLayout.mix(forward ^ tileValues[first + i * step]) ^ ranks[i]);
+		if (!bothOpen(chain))
+			return forward;
+		long backward = seed;
+		for (int i = length - 1; i >= 0; i--)
+			backward = BoardLayout.mix(BoardLayout.mix(backward ^ tileValues[first + i * step]) ^ ranks[i]);
+		return Math.min(forward, backward);
+	}
+
+	private int points(final int first, final int step, final int length) {
+		int points = 0;
+		for (int i = 0; i < length; i++)
+			points += tileValues[first + i * step];
+		return points;
+	}
+
+	/**
+	 * a captured area only gets filler edges around its first tile, the rest of the edges inside it stay open
+	 * @return open edges left inside the captured part of a chain
+	 */
+	private int spareEdges(final int first, final int step, final int length) {
+		if (length == 1)
+			return 0;
+		int lowest = 0;
+		for (int i = 1; i < length; i++)
+			if (tiles[first + i * step] < tiles[first + lowest * step])
+				lowest = i;
+		return length - 1 - (lowest == 0 || lowest == length - 1 ? 1 : 2);
+	}
+
+	/**
+	 * @param first index in {@link #tiles} of the closed end, if only one is open
+	 */
+	private static long chain(final int first, final int last, final boolean bothOpen) {
+		return (long) first << 32 | (long) last << 1 | (bothOpen ? 1 : 0);
+	}
+
+	private static int first(final long chain) {
+		return (int) (chain >>> 32);
+	}
+
+	private static int last(final long chain) {
+		return (int) chain >>> 1;
+	}
+
+	private static int length(final long chain) {
+		return Math.abs(last(chain) - first(chain)) + 1;
+	}
+
+	private static boolean bothOpen(final long chain) {
+		return (chain & 1) != 0;
+	}
+
+}
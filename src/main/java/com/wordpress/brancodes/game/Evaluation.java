@@ -0,0 +1,44 @@
+package com.wordpress.brancodes.game;
+
+/**
+ * what a search thinks of a board it won't search any deeper
+ */
+@FunctionalInterface
+public interface Evaluation {
+
+	/**
+	 * only the points captured so far
+	 */
+	Evaluation SCORE = new Evaluation() {
+		@Override
+		public int evaluate(final GameBoard gameBoard, final int player) {
+			return gameBoard.getScore();
+		}
+
+		@Override
+		public long id() {
+			return 1;
+		}
+	};
+
+	/**
+	 * the points captured so far and a guess at how the areas left will be shared, see {@link StructuralEvaluation}
+	 */
+	Evaluation STRUCTURAL = new StructuralEvaluation();
+
+	/**
+	 * @param player the player to move
+	 * @return how many points player 2 will end up ahead of player 1, negative if behind
+	 */
+	int evaluate(GameBoard gameBoard, int player);
+
+	/**
+	 * @return what a {@link PositionStore} tells the results of searches using it apart by, the same in every run and
+	 * different for every evaluation, or setting of one, that scores a board differently; 0 for none, a search with it
+	 * then doesn't use the store
+	 */
+	default long id() {
+		return 0;
+	}
+
+}
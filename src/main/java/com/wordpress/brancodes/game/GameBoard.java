@@ -6,93 +6,140 @@ import static com.wordpress.brancodes.game.Tile.*;
 
 public class GameBoard implements Cloneable {
 
+	/**
+	 * most edges a board can have, the search tables keep a move in 16 bits
+	 */
+	public static final int MAX_EDGES = 0xFFFF;
+
 	private static final Random RAND = new Random();
 
 	private boolean expanded;
 	private List<GameBoard> moves;
+	private int retainedChildren; // how many of its children a NodeCache counts and lets it keep, 0 if none
 	private int moveAmount;
+	private final BoardLayout layout; // size and tile values, shared by every board of a game
 	private final int width;
 	private final int height;
-	private int move; // move to get here; semi-hashcode for MinimaxSearcher
-	private byte[][] verticals;
-	private byte[][] horizontals;
-	private Tile[][] captured;
-	private byte[][] tileValues;
+	private int move; // edge played to get here; semi-hashcode for MinimaxSearcher
+	private long[] bits; // edges drawn | filler edges | tiles of player 1 | tiles of player 2, see BoardLayout
+	private long key; // zobrist key of the position, updated with every edge and tile
+	private long canonicalKey;
+	private int canonicalSymmetry = -1; // index into the layout's symmetries, -1 until the canonical key is needed
 	private int score; // p2 - p1
 	private boolean throwDraw = false;
+	private Undo undo; // positions before each move made in place, null until the first one
 
 	public GameBoard(final int length) {
 		this(length, length);
 	}
 
 	public GameBoard(final int height, final int width) {
-		this(width, height, 0, -1, 0,
-			 new byte[height][width + 1],
-			 new byte[height + 1][width],
-			 new Tile[height][width],
-			 new byte[height][width]);
-		for (int i = 0; i < height; i++)
-			for (int j = 0; j < width; j++)
-				captured[i][j] = EMPTY;
-		for (int i = 0; i < height; i++)
-			for (int j = 0; j < width; j++)
-				tileValues[i][j] = (byte) (RAND.nextInt(5) + 1);
-	}
-
-	public GameBoard(final int width, final int height,
-					 final int moveAmount, final int move,
-					 final int score,
-					 final byte[][] verticals, final byte[][] horizontals,
-					 final Tile[][] captured, final byte[][] tileValues) {
+		this(new BoardLayout(height, width, randomTileValues(checkSize(height, width), RAND)), 0, -1, 0);
+	}
+
+	/**
+	 * @param seed the same seed always gives the same tile values, for repeatable benchmarks
+	 */
+	public GameBoard(final int height, final int width, final long seed) {
+		this(new BoardLayout(height, width, randomTileValues(checkSize(height, width), new Random(seed))), 0, -1, 0);
+	}
+
+	/**
+	 * @param tileValues points of each tile, row by row
+	 */
+	public GameBoard(final int height, final int width, final byte[] tileValues) {
+		this(new BoardLayout(height, width, checkTileValues(height, width, tileValues)), 0, -1, 0);
+	}
+
+	private GameBoard(final BoardLayout layout, final int moveAmount, final int move, final int score) {
+		this(layout, moveAmount, move, score, new long[layout.wordCount], BoardLayout.START_KEY);
+	}
+
+	private GameBoard(final BoardLayout layout,
+					  final int moveAmount, final int move,
+					  final int score, final long[] bits, final long key) {
 		expanded = false;
-		this.width = width;
-		this.height = height;
+		this.layout = layout;
+		this.width = layout.width;
+		this.height = layout.height;
 		this.moveAmount = moveAmount;
 		this.move = move;
 		this.score = score;
-		this.verticals = verticals;
-		this.horizontals = horizontals;
-		this.captured = captured;
-		this.tileValues = tileValues;
+		this.bits = bits;
+		this.key = key;
+	}
+
+	/**
+	 * @return edges of a board of the size, or -1 if it has no tiles or more than {@link #MAX_EDGES} edges
+	 */
+	public static int edgeCount(final int height, final int width) {
+		if (height < 1 || width < 1)
+			return -1;
+		final long edges = (long) height * (2L * width + 1) + width;
+		return edges > MAX_EDGES ? -1 : (int) edges;
+	}
+
+	/**
+	 * @return the amount of tiles
+	 */
+	private static int checkSize(final int height, final int width) {
+		if (height < 1 || width < 1)
+			throw new IllegalArgumentException("a board needs at least one tile, not " + height + "x" + width);
+		if (edgeCount(height, width) == -1)
+			throw new IllegalArgumentException("a board can have at most " + MAX_EDGES + " edges, not " + height + "x" + width);
+		return height * width;
+	}
+
+	private static byte[] checkTileValues(final int height, final int width, final byte[] tileValues) {
+		if (tileValues.length != checkSize(height, width))
+			throw new IllegalArgumentException(tileValues.length + " tile values for " + height * width + " tiles");
+		for (final byte tileValue : tileValues)
+			if (tileValue < 0)
+				throw new IllegalArgumentException("tile values can't be negative");
+		return tileValues.clone();
+	}
+
+	private static byte[] randomTileValues(final int tiles, final Random random) {
+		final byte[] tileValues = new byte[tiles];
+		for (int i = 0; i < tiles; i++)
+			tileValues[i] = (byte) (random.nextInt(5) + 1);
+		return tileValues;
 	}
 
 	/**
 	 * @param pos position of next edge to play from top left to bottom right excluding filled edges
 	 */
-	public void move(int player, int pos) { // could implement a Map<Integer, Point> for O(1), but the board is too small to care
+	public void move(int player, int pos) {
 		int option = 0;
-		for (int i = 0; i < height + 1; i++) {
-			for (int j = 0; j < width; j++) {
-				if (horizontals[i][j] == 0) {
-					if (option == pos) {
-						horizontals[i][j] = (byte) 1;
-						move(player);
+		for (int edge = 0; edge < layout.edgeCount; edge++) {
+			if (isOpen(edge)) {
+				if (option == pos) {
+					play(edge, player);
+					move = edge;
 					return;
-					}
-					option++;
-				}
-			}
-			if (i < height) {
-				for (int j = 0; j < width + 1; j++) {
-					if (verticals[i][j] == 0) {
-						if (option == pos) {
-							verticals[i][j] = (byte) 1;
-							move(player);
-							return;
-						}
-						option++;
-					}
 				}
+				option++;
 			}
 		}
 	}
 
 	/**
-	 * apply a move at this specific spot
+	 * @param edge index of the edge among all of them, drawn or not, from top left to bottom right
+	 * @throws IllegalArgumentException if the edge isn't on the board or is drawn already
 	 */
-	private void move(int player, boolean isVertical, int i, int j) {
-		(isVertical ? verticals : horizontals)[i][j] = (byte) player;
-		move(player);
+	public void moveEdge(final int player, final int edge) {
+		if (edge < 0 || edge >= layout.edgeCount || !isOpen(edge))
+			throw new IllegalArgumentException("edge " + edge + " can't be drawn");
+		play(edge, player);
+		move = edge;
+	}
+
+	/**
+	 * apply a move at this specific edge
+	 */
+	private void play(int edge, int player) {
+		setEdge(edge);
+		refresh(edge, player);
 	}
 
 	/**
@@ -107,27 +154,154 @@ public class GameBoard implements Cloneable {
 			moves = null;
 		}
 		precalculatedPotentialMoves = other.precalculatedPotentialMoves;
+		retainedChildren = 0;
 		moveAmount = other.moveAmount;
 		move = other.move;
-		verticals = other.verticals;
-		horizontals = other.horizontals;
-		captured = other.captured;
-		tileValues = other.tileValues;
+		bits = other.bits.clone(); // moves played on this board later must not change the other one
+		key = other.key;
+		canonicalKey = other.canonicalKey;
+		canonicalSymmetry = other.canonicalSymmetry;
 		score = other.score;
 		throwDraw = other.throwDraw;
 	}
 
+	/**
+	 * @return the already expanded child that is the same position as the board, or null
+	 */
+	GameBoard findChild(final GameBoard position) {
+		if (moves != null)
+			for (final GameBoard child : moves)
+				if (child.equals(position))
+					return child;
+		return null;
+	}
+
+	/**
+	 * draw an edge on this board itself, keeping what it replaces so {@link #unmakeMove()} can put it back,
+	 * for searching one board in place without allocating a board per node
+	 */
+	void makeMove(final int edge, final int player) {
+		if (undo == null)
+			undo = new Undo(layout);
+		final int frame = undo.moves++;
+		System.arraycopy(bits, 0, undo.bits, frame * layout.wordCount, layout.wordCount);
+		undo.keys[frame] = key;
+		undo.canonicalKeys[frame] = canonicalKey;
+		undo.canonicalSymmetries[frame] = canonicalSymmetry;
+		undo.scores[frame] = score;
+		undo.edges[frame] = move;
+		play(edge, player);
+		move = edge;
+	}
+
+	/**
+	 * take back the last move made with {@link #makeMove(int, int)}
+	 */
+	void unmakeMove() {
+		final int frame = --undo.moves;
+		System.arraycopy(undo.bits, frame * layout.wordCount, bits, 0, layout.wordCount);
+		key = undo.keys[frame];
+		canonicalKey = undo.canonicalKeys[frame];
+		canonicalSymmetry = undo.canonicalSymmetries[frame];
+		score = undo.scores[frame];
+		move = undo.edges[frame];
+		moveAmount--;
+	}
+
+	/**
+	 * become the other board's position, forgetting any moves made in place, without allocating
+	 */
+	void copyPosition(final GameBoard other) {
+		unexpand();
+		System.arraycopy(other.bits, 0, bits, 0, layout.wordCount);
+		moveAmount = other.moveAmount;
+		move = other.move;
+		key = other.key;
+		canonicalKey = other.canonicalKey;
+		canonicalSymmetry = other.canonicalSymmetry;
+		score = other.score;
+		if (undo != null)
+			undo.moves = 0;
+	}
+
+	/**
+	 * @return the drawn edges, filler edges included, of a board with fewer than 64 edges
+	 */
+	long getEdges() {
+		return bits[0];
+	}
+
+	/**
+	 * become the position with these edges drawn, forgetting any moves made in place; enclosed areas are captured
+	 * by player 1, since who owns a tile doesn't change the rest of the game, and the score and move count start over.
+	 * no filler edges are added: a captured area can have been split by edges drawn around the first tile of a bigger
+	 * area, and filling its pieces again would take away spare edges. the ones drawn aren't told apart from played
+	 * ones, which only shows when printing the board
+	 * @param edges drawn edges of a board with fewer than 64 edges, as {@link #getEdges()} gives them
+	 */
+	void setEdges(final long edges) {
+		unexpand();
+		Arrays.fill(bits, 0);
+		key = BoardLayout.START_KEY;
+		for (long drawn = edges; drawn != 0; drawn &= drawn - 1)
+			setEdge(Long.numberOfTrailingZeros(drawn));
+		score = 0;
+		moveAmount = 0;
+		move = -1;
+		canonicalSymmetry = -1;
+		if (undo != null)
+			undo.moves = 0;
+		for (int tile = 0; tile < layout.tileCount; tile++)
+			if (getOwner(tile) == 0)
+				captureIfEnclosed(tile, 1, false);
+	}
+
+	/**
+	 * what {@link #unmakeMove()} restores, one frame per move, with room for every edge of the board;
+	 * and the buffers finding captured areas uses, so a move made in place allocates nothing
+	 */
+	private static final class Undo {
+
+		private final long[] bits;
+		private final long[] keys;
+		private final long[] canonicalKeys;
+		private final int[] canonicalSymmetries;
+		private final int[] scores;
+		private final int[] edges;
+		private final int[] area;
+		private final long[] searched;
+		private int moves;
+
+		Undo(final BoardLayout layout) {
+			final int frames = layout.edgeCount;
+			bits = new long[frames * layout.wordCount];
+			keys = new long[frames];
+			canonicalKeys = new long[frames];
+			canonicalSymmetries = new int[frames];
+			scores = new int[frames];
+			edges = new int[frames];
+			area = new int[layout.tileCount];
+			searched = new long[layout.tileWords];
+		}
+
+	}
+
 	/**
 	 * move at a random spot (used by RandomPlayer)
 	 */
 	void moveRandom(int player) {
+		moveRandom(player, RAND);
+	}
+
+	/**
+	 * @param random so every thread playing out games can have its own
+	 */
+	void moveRandom(final int player, final Random random) {
 		while (true) {
-			final boolean isVertical = RAND.nextBoolean();
-			final int i = RAND.nextInt(isVertical ? height : height + 1);
-			final int j = RAND.nextInt(isVertical ? width + 1 : width);
-			if ((isVertical ? verticals : horizontals)[i][j] == 0) {
-				(isVertical ? verticals : horizontals)[i][j] = (byte) 1;
-				move(player);
+			final int edge = random.nextInt(layout.edgeCount);
+			if (isOpen(edge)) {
+				play(edge, player);
+				move = edge;
 				return;
 			}
 		}
@@ -137,8 +311,9 @@ public class GameBoard implements Cloneable {
 	 * required "refresh" after each move type
 	 * check for new captured area and delete its children
 	 */
-	private void move(int player) {
-		refreshTileCaptures(player);
+	private void refresh(int edge, int player) {
+		canonicalSymmetry = -1;
+		refreshTileCaptures(edge, player);
 		unexpand();
 		incrementMoveAmount();
 	}
@@ -147,39 +322,52 @@ public class GameBoard implements Cloneable {
 		expanded = false;
 		moves = null;
 		precalculatedPotentialMoves = null;
+		retainedChildren = 0;
+	}
+
+	/**
+	 * @return the children expanded so far, all of them or only the first few an iterator gave
+	 */
+	List<GameBoard> getExpandedChildren() {
+		return moves == null ? List.of() : moves;
+	}
+
+	/**
+	 * forget the children so they can be collected, they are expanded again if needed
+	 */
+	void releaseChildren() {
+		unexpand();
+	}
+
+	int getRetainedChildren() {
+		return retainedChildren;
+	}
+
+	void retain(final int children) {
+		retainedChildren = children;
 	}
 
 	public List<GameBoard> expand(int player) {
 		if (expanded)
 			return moves;
 		moves = new ArrayList<>();
-		int moveNum = 0;
-		for (int i = 0; i < height + 1; i++) {
-			for (int j = 0; j < width; j++) {
-				if (horizontals[i][j] == 0) {
-					GameBoard next = clone();
-					next.horizontals[i][j] = (byte) player;
-					next.move(player);
-					next.setMove(moveNum++);
-					moves.add(next);
-				}
-			}
-			if (i < height) {
-				for (int j = 0; j < width + 1; j++) {
-					if (verticals[i][j] == 0) { // extracted method is tempting here, but it quickly leads to bad design
-						GameBoard next = clone();
-						next.verticals[i][j] = (byte) player;
-						next.move(player);
-						next.setMove(moveNum++);
-						moves.add(next);
-					}
-				}
-			}
-		}
+		for (int edge = 0; edge < layout.edgeCount; edge++)
+			if (isOpen(edge))
+				moves.add(child(edge, player));
 		expanded = true;
 		return moves;
 	}
 
+	/**
+	 * @return a copy of the board with the open edge drawn, without adding it to the board's children
+	 */
+	GameBoard child(final int edge, final int player) {
+		final GameBoard next = clone();
+		next.play(edge, player);
+		next.setMove(edge);
+		return next;
+	}
+
 	/**
 	 * if the iterator was called and didn't finish and it's being expanded again,
 	 * then its old data can be reused
@@ -190,9 +378,43 @@ public class GameBoard implements Cloneable {
 	 * use an iterator to help alpha beta pruning
 	 */
 	public Iterator<GameBoard> expandIter(int player) {
-		if (expanded)
+		return expandIter(player, -1);
+	}
+
+	/**
+	 * @param firstMove edge to give first, like the best move of an earlier search, or -1 to keep the board's order
+	 */
+	Iterator<GameBoard> expandIter(int player, int firstMove) {
+		return expandIter(player, firstMove, null);
+	}
+
+	/**
+	 * children not expanded yet are given in the order's ranking, then the first move is put in front
+	 * @param ordering ranks the moves when the iterator is made, null to keep the board's order
+	 */
+	Iterator<GameBoard> expandIter(int player, int firstMove, MoveOrdering ordering) {
+		if (expanded) {
+			if (ordering != null) {
+				final int[] ranks = rank(ordering);
+				moves.sort((a, b) -> Integer.compare(ranks[b.move], ranks[a.move]));
+			}
+			if (firstMove != -1)
+				for (int i = 1; i < moves.size(); i++)
+					if (moves.get(i).move == firstMove) {
+						moves.add(0, moves.remove(i));
+						break;
+					}
 			return moves.iterator();
-		return new ExpandIter(this, player);
+		}
+		return new ExpandIter(this, player, firstMove, ordering);
+	}
+
+	private int[] rank(final MoveOrdering ordering) {
+		final int[] ranks = new int[layout.edgeCount];
+		for (int edge = 0; edge < layout.edgeCount; edge++)
+			if (isOpen(edge))
+				ranks[edge] = ordering.rank(this, edge);
+		return ranks;
 	}
 
 	private class ExpandIter implements Iterator<GameBoard> {
@@ -202,7 +424,7 @@ public class GameBoard implements Cloneable {
 		private List<PotentialMove> potentialMoves;
 		private int moveNum;
 
-		public ExpandIter(final GameBoard gameBoard, final int player) {
+		public ExpandIter(final GameBoard gameBoard, final int player, final int firstMove, final MoveOrdering ordering) {
 			this.gameBoard = gameBoard;
 			this.player = player;
 			moveNum = 0;
@@ -211,18 +433,34 @@ public class GameBoard implements Cloneable {
 				potentialMoves = precalculatedPotentialMoves;
 			else
 				calculatePotentialMoves();
+			if (ordering != null) {
+				final int[] ranks = rank(ordering);
+				potentialMoves.subList(moves.size(), potentialMoves.size())
+							  .sort((a, b) -> Integer.compare(ranks[b.edge()], ranks[a.edge()]));
+			}
+			if (firstMove != -1)
+				moveToFront(firstMove);
 		}
 
-		private void calculatePotentialMoves() {
-			for (int i = 0; i < height + 1; i++) {
-				for (int j = 0; j < width; j++)
-					if (horizontals[i][j] == 0)
-						potentialMoves.add(new PotentialMove(false, i, j));
-				if (i < height)
-					for (int j = 0; j < width + 1; j++)
-						if (verticals[i][j] == 0)
-							potentialMoves.add(new PotentialMove(true, i, j));
+		/**
+		 * the first moves.size() potential moves are already expanded, so a move that isn't has to be expanded
+		 * before it can go in front of them
+		 */
+		private void moveToFront(final int edge) {
+			for (int i = 1; i < potentialMoves.size(); i++) {
+				if (potentialMoves.get(i).edge() == edge) {
+					final PotentialMove potentialMove = potentialMoves.remove(i);
+					potentialMoves.add(0, potentialMove);
+					moves.add(0, i < moves.size() ? moves.remove(i) : potentialMove.toMove(gameBoard, player));
+					return;
+				}
 			}
+		}
+
+		private void calculatePotentialMoves() {
+			for (int edge = 0; edge < layout.edgeCount; edge++)
+				if (isOpen(edge))
+					potentialMoves.add(new PotentialMove(edge));
 			moves = new ArrayList<>();
 			precalculatedPotentialMoves = potentialMoves;
 		}
@@ -243,23 +481,21 @@ public class GameBoard implements Cloneable {
 		public GameBoard next() {
 			if (moveNum < moves.size())
 				return moves.get(moveNum++);
-			final GameBoard move = potentialMoves.get(moveNum).toMove(gameBoard, player, moveNum++);
+			final GameBoard move = potentialMoves.get(moveNum++).toMove(gameBoard, player);
 			moves.add(move);
 			return move;
 		}
 
-		private record PotentialMove(boolean isVertical, int i, int j) {
+		private record PotentialMove(int edge) {
 
 			/**
 			 * lazy expansion
 			 */
-			GameBoard toMove(GameBoard gameBoard, final int player, int moveNum) {
+			GameBoard toMove(GameBoard gameBoard, final int player) {
 				GameBoard next = gameBoard.clone();
-				(isVertical ? next.verticals : next.horizontals)[i][j] = (byte) 1;
-				next.refreshTileCaptures(player);
-				next.incrementMoveAmount();
-				next.unexpand();
-				next.setMove(moveNum);
+				next.setEdge(edge);
+				next.refresh(edge, player);
+				next.setMove(edge);
 				return next;
 			}
 		}
@@ -273,70 +509,123 @@ public class GameBoard implements Cloneable {
 	/**
 	 * check to find any new enclosed areas and give those tiles to the last player who moved
 	 * to be called after every move (otherwise it may give area to the wrong person)
+	 * <p>
+	 * every enclosed area is captured as soon as it closes, so only the areas on either side of
+	 * the new edge can have become enclosed
+	 * @param edge edge that was just drawn
 	 * @param lastPlayer player who will be given the tiles
 	 */
-	private void refreshTileCaptures(int lastPlayer) {
-		for (int i = 0; i < height; i++)
-			for (int j = 0; j < width; j++) {
-				if (searchCaptured(i, j)) {
-					int pointsGained = 0;
-					for (int i0 = 0; i0 < height; i0++)
-						for (int j0 = 0; j0 < width; j0++)
-							if (captured[i0][j0] == SEARCHED) {
-								pointsGained += tileValues[i0][j0];
-								captured[i0][j0] = Tile.get(lastPlayer);
-								if (horizontals[i][j] == 0) // above
-									horizontals[i][j] = 3;
-								if (verticals[i][j + 1] == 0) // right
-									verticals[i][j + 1] = 3;
-								if (horizontals[i + 1][j] == 0) // below
-									horizontals[i + 1][j] = 3;
-								if (verticals[i][j] == 0) // left
-									verticals[i][j] = 3;
-							}
-					score += lastPlayer == 2 ? pointsGained : -pointsGained;
-				} else {
-					for (int i0 = 0; i0 < height; i0++)
-						for (int j0 = 0; j0 < width; j0++)
-							if (captured[i0][j0] == SEARCHED)
-								captured[i0][j0] = UNENCLOSED;
+	private void refreshTileCaptures(int edge, int lastPlayer) {
+		final int first = layout.edgeTiles[2 * edge];
+		final int second = layout.edgeTiles[2 * edge + 1];
+		if (first != -1 && getOwner(first) == 0)
+			captureIfEnclosed(first, lastPlayer);
+		if (second != -1 && getOwner(second) == 0) // already captured with first if they share an area
+			captureIfEnclosed(second, lastPlayer);
+	}
+
+	/**
+	 * flood fill the area of an empty tile through its open edges and capture it if no open edge leads off the board
+	 * @return if the area was captured
+	 */
+	private boolean captureIfEnclosed(final int start, final int lastPlayer) {
+		return captureIfEnclosed(start, lastPlayer, true);
+	}
+
+	/**
+	 * @param fill draw the filler edges, false if they are drawn already
+	 */
+	private boolean captureIfEnclosed(final int start, final int lastPlayer, final boolean fill) {
+		final int[] area = undo == null ? new int[layout.tileCount] : undo.area;
+		final long[] searched = undo == null ? new long[layout.tileWords] : undo.searched;
+		if (undo != null)
+			Arrays.fill(searched, 0);
+		int size = 0;
+		area[size++] = start;
+		searched[start >>> 6] |= 1L << start;
+		for (int next = 0; next < size; next++) {
+			final int tile = area[next];
+			for (int side = 0; side < 4; side++) {
+				final int edge = layout.edgeAt(tile, side);
+				if (!isOpen(edge))
+					continue;
+				final int neighbor = layout.edgeTiles[2 * edge] == tile ? layout.edgeTiles[2 * edge + 1] : layout.edgeTiles[2 * edge];
+				if (neighbor == -1) // wall missing on the edge of the board
+					return false;
+				if ((searched[neighbor >>> 6] & 1L << neighbor) == 0) {
+					searched[neighbor >>> 6] |= 1L << neighbor;
+					area[size++] = neighbor;
 				}
 			}
-		for (int i = 0; i < height; i++) // reset
-			for (int j = 0; j < width; j++)
-				if (captured[i][j] == SEARCHED || captured[i][j] == UNENCLOSED)
-					captured[i][j] = EMPTY;
+		}
+		int pointsGained = 0;
+		int topLeft = start;
+		for (int i = 0; i < size; i++) {
+			pointsGained += layout.tileValue(area[i]);
+			setOwner(area[i], lastPlayer);
+			topLeft = Math.min(topLeft, area[i]);
+		}
+		if (fill)
+			fillEdges(topLeft); // only the first tile of an area gets filler edges
+		score += lastPlayer == 2 ? pointsGained : -pointsGained;
+		return true;
 	}
 
 	/**
-	 * input: coordinates of an empty and unsearched tile in captured
+	 * close the open sides of a newly captured tile with filler edges
 	 */
-	private boolean searchCaptured(final int i, final int j) {
-		if (i < 0 || i >= height || j < 0 || j >= width)
-			return false;
-		if (captured[i][j] == EMPTY) { // i and j guaranteed to be in bounds
-			captured[i][j] = SEARCHED; // indicate that it is searched to avoid repeat checks
-			if (horizontals[i][j] == 0 && !searchCaptured(i - 1, j)) // wall above
-				return false;
-			if (verticals[i][j + 1] == 0 && !searchCaptured(i, j + 1)) // wall right
-				return false;
-			if (horizontals[i + 1][j] == 0 && !searchCaptured(i + 1, j)) // wall below
-				return false;
-			if (verticals[i][j] == 0 && !searchCaptured(i, j - 1)) // wall left
-				return false;
-			return true;
+	private void fillEdges(final int tile) {
+		for (int side = 0; side < 4; side++) {
+			final int edge = layout.edgeAt(tile, side);
+			if (isOpen(edge)) {
+				setEdge(edge);
+				set(layout.fillerOffset, edge);
+			}
 		}
-		return captured[i][j] == SEARCHED; // just checked a searched tile, so it could still be enclosed
 	}
 
-	int getPlayerScore(int player) {
-		final Tile tile = get(player);
+	BoardLayout getLayout() {
+		return layout;
+	}
+
+	boolean isOpen(final int edge) {
+		return !get(0, edge);
+	}
+
+	private boolean isFiller(final int edge) {
+		return get(layout.fillerOffset, edge);
+	}
+
+	private void setEdge(final int edge) {
+		set(0, edge);
+		key ^= layout.edgeKeys[edge];
+	}
+
+	/**
+	 * @return the player who captured the tile or 0 if it is still empty
+	 */
+	int getOwner(final int tile) {
+		return get(layout.owner1Offset, tile) ? 1 : get(layout.owner2Offset, tile) ? 2 : 0;
+	}
+
+	private void setOwner(final int tile, final int player) {
+		set(player == 1 ? layout.owner1Offset : layout.owner2Offset, tile);
+		key ^= layout.ownerKey(tile, player);
+	}
+
+	private boolean get(final int offset, final int index) {
+		return (bits[offset + (index >>> 6)] & 1L << index) != 0;
+	}
+
+	private void set(final int offset, final int index) {
+		bits[offset + (index >>> 6)] |= 1L << index;
+	}
+
+	public int getPlayerScore(int player) {
 		int score = 0;
-		for (int i = 0; i < height; i++)
-			for (int j = 0; j < width; j++) {
-				if (captured[i][j] == tile)
-					score += tileValues[i][j];
-			}
+		for (int tile = 0; tile < layout.tileCount; tile++)
+			if (getOwner(tile) == player)
+				score += layout.tileValue(tile);
 		return score;
 	}
 	/**
@@ -351,13 +640,44 @@ public class GameBoard implements Cloneable {
 	 * @return if board has been finished and can no longer be played on
 	 */
 	public boolean complete() {
-		for (int i = 0; i < height; i++)
-			for (int j = 0; j < width; j++)
-				if (captured[i][j] == EMPTY)
-					return false;
+		for (int tile = 0; tile < layout.tileCount; tile++)
+			if (getOwner(tile) == 0)
+				return false;
 		return true;
 	}
 
+	/**
+	 * @return the most sides drawn around an empty tile next to the edge, 3 meaning the edge would capture it,
+	 * or -1 if there is no empty tile next to it
+	 */
+	int getMostDrawnSides(final int edge) {
+		int most = -1;
+		for (int slot = 0; slot < 2; slot++) {
+			final int tile = layout.edgeTiles[2 * edge + slot];
+			if (tile != -1 && getOwner(tile) == 0)
+				most = Math.max(most, getDrawnSides(tile));
+		}
+		return most;
+	}
+
+	int getDrawnSides(final int tile) {
+		int drawn = 0;
+		for (int side = 0; side < 4; side++)
+			if (!isOpen(layout.edgeAt(tile, side)))
+				drawn++;
+		return drawn;
+	}
+
+	/**
+	 * @return how many edges are left to draw, including spare edges inside captured areas
+	 */
+	public int getOpenEdgeAmount() {
+		int drawn = 0;
+		for (int word = 0; word < layout.edgeWords; word++)
+			drawn += Long.bitCount(bits[word]);
+		return layout.edgeCount - drawn;
+	}
+
 	/**
 	 * @return the level of this board to be stored into respective category on minimax's storage table
 	 */
@@ -367,6 +687,102 @@ public class GameBoard implements Cloneable {
 
 	void incrementMoveAmount() {
 		moveAmount++;
+		key ^= BoardLayout.SIDE_KEY;
+	}
+
+	/**
+	 * @return 64 bit zobrist key of the drawn edges, captured tiles and side to move, for any board size
+	 */
+	long getKey() {
+		return key;
+	}
+
+	/**
+	 * the same key for all positions that are mirror images or rotations of each other, when that's safe:
+	 * the filler edges of a captured area go around its first tile in row-major order, which a symmetry doesn't keep,
+	 * so later captures can leave a different amount of spare edges unless every empty area is a straight line
+	 * @return the smallest key of the position under the layout's symmetries, or the plain key
+	 */
+	long getCanonicalKey() {
+		if (canonicalSymmetry == -1)
+			findCanonicalKey();
+		return canonicalKey;
+	}
+
+	private void findCanonicalKey() {
+		canonicalKey = key;
+		canonicalSymmetry = 0;
+		if (layout.symmetryEdges.length == 1 || !isSymmetrySafe())
+			return;
+		for (int symmetry = 1; symmetry < layout.symmetryEdges.length; symmetry++) {
+			final long symmetricKey = getSymmetricKey(symmetry);
+			if (symmetricKey < canonicalKey) {
+				canonicalKey = symmetricKey;
+				canonicalSymmetry = symmetry;
+			}
+		}
+	}
+
+	/**
+	 * @return the key this position would have after being moved by a symmetry
+	 */
+	private long getSymmetricKey(final int symmetry) {
+		final int[] edges = layout.symmetryEdges[symmetry];
+		final int[] tiles = layout.symmetryTiles[symmetry];
+		long symmetricKey = BoardLayout.START_KEY ^ ((moveAmount & 1) == 0 ? 0 : BoardLayout.SIDE_KEY);
+		for (int word = 0; word < layout.edgeWords; word++)
+			for (long drawn = bits[word]; drawn != 0; drawn &= drawn - 1)
+				symmetricKey ^= layout.edgeKeys[edges[word << 6 | Long.numberOfTrailingZeros(drawn)]];
+		for (int player = 1; player <= 2; player++) {
+			final int offset = player == 1 ? layout.owner1Offset : layout.owner2Offset;
+			for (int word = 0; word < layout.tileWords; word++)
+				for (long owned = bits[offset + word]; owned != 0; owned &= owned - 1)
+					symmetricKey ^= layout.ownerKey(tiles[word << 6 | Long.numberOfTrailingZeros(owned)], player);
+		}
+		return symmetricKey;
+	}
+
+	/**
+	 * @return if no empty tile is joined by open edges to both a tile beside it and a tile above or below it
+	 */
+	private boolean isSymmetrySafe() {
+		for (int tile = 0; tile < layout.tileCount; tile++) {
+			if (getOwner(tile) != 0)
+				continue;
+			final boolean across = isLink(tile, BoardLayout.LEFT) || isLink(tile, BoardLayout.RIGHT);
+			if (across && (isLink(tile, BoardLayout.TOP) || isLink(tile, BoardLayout.BOTTOM)))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isLink(final int tile, final int side) {
+		final int edge = layout.edgeAt(tile, side);
+		return isOpen(edge) && layout.edgeTiles[2 * edge] != -1 && layout.edgeTiles[2 * edge + 1] != -1;
+	}
+
+	/**
+	 * @return the edge in the orientation of {@link #getCanonicalKey()}
+	 */
+	int toCanonicalEdge(final int edge) {
+		getCanonicalKey();
+		return layout.symmetryEdges[canonicalSymmetry][edge];
+	}
+
+	/**
+	 * @return the edge of this board for an edge in the orientation of {@link #getCanonicalKey()}
+	 */
+	int fromCanonicalEdge(final int edge) {
+		getCanonicalKey();
+		return layout.inverseSymmetryEdges[canonicalSymmetry][edge];
+	}
+
+	/**
+	 * @return the edge that was played to get to this board, in the numbering of {@link #moveEdge(int, int)},
+	 * or -1 for a starting board
+	 */
+	public int getMove() {
+		return move;
 	}
 
 	/**
@@ -384,19 +800,25 @@ public class GameBoard implements Cloneable {
 		return val == 0 ? ' ' : (char) (val + '0');
 	}
 
+	private char ownerToChar(int tile) {
+		return Tile.get(getOwner(tile)) == null ? EMPTY.toChar() : Tile.get(getOwner(tile)).toChar();
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sB = new StringBuilder();
 		for (int i = 0; i < height + 1; i++) {
 			for (int j = 0; j < width; j++) {
-				sB.append('*').append(horizontals[i][j] == 0 ? ' ' : horizontals[i][j] == 3 ? '|' : '-');
+				final int edge = layout.horizontal(i, j);
+				sB.append('*').append(isOpen(edge) ? ' ' : isFiller(edge) ? '|' : '-');
 			}
 			sB.append("*\n");
 			if (i < height) {
 				for (int j = 0; j < width + 1; j++) {
-					sB.append(verticals[i][j] == 0 ? ' ' : verticals[i][j] == 3 ? '-' : '|');
+					final int edge = layout.vertical(i, j);
+					sB.append(isOpen(edge) ? ' ' : isFiller(edge) ? '-' : '|');
 					if (j < width)
-						sB.append(captured[i][j].toChar());
+						sB.append(ownerToChar(layout.tile(i, j)));
 				}
 			}
 			sB.append('\n');
@@ -411,14 +833,16 @@ public class GameBoard implements Cloneable {
 		StringBuilder sB = new StringBuilder();
 		for (int i = 0; i < height + 1; i++) {
 			for (int j = 0; j < width; j++) {
-				sB.append('*').append(horizontals[i][j] == 0 || horizontals[i][j] == 3 ? ' ' : '-');
+				final int edge = layout.horizontal(i, j);
+				sB.append('*').append(isOpen(edge) || isFiller(edge) ? ' ' : '-');
 			}
 			sB.append("*\n");
 			if (i < height) {
 				for (int j = 0; j < width + 1; j++) {
-					sB.append(verticals[i][j] == 0 || verticals[i][j] == 3 ? ' ' : '|');
+					final int edge = layout.vertical(i, j);
+					sB.append(isOpen(edge) || isFiller(edge) ? ' ' : '|');
 					if (j < width)
-						sB.append(tileToChar(tileValues[i][j]));
+						sB.append(tileToChar(layout.tileValues[layout.tile(i, j)]));
 				}
 			}
 			sB.append('\n');
@@ -434,14 +858,16 @@ public class GameBoard implements Cloneable {
 		char option = 'a';
 		for (int i = 0; i < height + 1; i++) {
 			for (int j = 0; j < width; j++) {
-				sB.append('*').append(horizontals[i][j] == 0 ? option++ : horizontals[i][j] == 3 ? ' ' : '-');
+				final int edge = layout.horizontal(i, j);
+				sB.append('*').append(isOpen(edge) ? option++ : isFiller(edge) ? ' ' : '-');
 				if (option == 'z' + 1)
 					option = 'A';
 			}
 			sB.append("*\n");
 			if (i < height) {
 				for (int j = 0; j < width + 1; j++) {
-					sB.append(verticals[i][j] == 0 ? option++ : verticals[i][j] == 3 ? ' ' : '|');
+					final int edge = layout.vertical(i, j);
+					sB.append(isOpen(edge) ? option++ : isFiller(edge) ? ' ' : '|');
 					if (option == 'z' + 1)
 						option = 'A';
 					if (j < width)
@@ -453,23 +879,12 @@ public class GameBoard implements Cloneable {
 		return sB.toString();
 	}
 
+	/**
+	 * only the few words of the position are copied, the layout and tile values are shared
+	 */
 	@Override
 	public GameBoard clone() {
-		return new GameBoard(width, height, moveAmount, move, score, clone(verticals), clone(horizontals), clone(captured), clone(tileValues));
-	}
-
-	private byte[][] clone(final byte[][] bytes) {
-		final byte[][] clone = new byte[bytes.length][bytes[0].length];
-		for (int i = 0; i < bytes.length; i++)
-			System.arraycopy(bytes[i], 0, clone[i], 0, bytes[i].length);
-		return clone;
-	}
-
-	private Tile[][] clone(final Tile[][] tiles) {
-		final Tile[][] clone = new Tile[tiles.length][tiles[0].length];
-		for (int i = 0; i < tiles.length; i++)
-			System.arraycopy(tiles[i], 0, clone[i], 0, tiles[i].length);
-		return clone;
+		return new GameBoard(layout, moveAmount, move, score, bits.clone(), key);
 	}
 
 	@Override
@@ -481,54 +896,25 @@ public class GameBoard implements Cloneable {
 
 		final GameBoard gameBoard = (GameBoard) o;
 
-		if (!Arrays.deepEquals(verticals, gameBoard.verticals))
-			return false;
-		if (!Arrays.deepEquals(horizontals, gameBoard.horizontals))
-			return false;
-		return Arrays.deepEquals(captured, gameBoard.captured);
+		return layout == gameBoard.layout && Arrays.equals(bits, gameBoard.bits);
 	}
 
 	/**
-	 * @return completely unique hashcode if the board is small enough for fast repeat checking, otherwise a default implementation
+	 * @return mix of the position's words; drawn edges and captured tiles are all that separate two positions of a game
 	 */
 	@Override
 	public int hashCode() {
-		int hash = 0;
-		int shift = 0;
-		// moves you can make + who captured which must be in range for efficient bitwise hashcode (up to 2x3)
-		if (getHashCodeBitSize() > 32)
-			return defaultHashCode();
-		for (int i = 0; i < height; i++)
-			for (int j = 0; j < width + 1; j++)
-				hash |= (verticals[i][j] & 1) << shift++;
-		for (int i = 0; i < height + 1; i++)
-			for (int j = 0; j < width; j++)
-				hash |= (horizontals[i][j] & 1) << shift++;
-		for (int i = 0; i < height; i++)
-			for (int j = 0; j < width; j++)
-				hash |= (captured[i][j] == FILL1 ? 1 : captured[i][j] == FILL2 ? 2 : 0) << (shift += 2);
-		return hash;
-	}
-
-	private int defaultHashCode() {
-		int result = Arrays.deepHashCode(verticals);
-		result = 31 * result + Arrays.deepHashCode(horizontals);
-		result = 31 * result + Arrays.deepHashCode(captured);
-		return result;
+		long hash = 0;
+		for (final long word : bits)
+			hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ hash >>> 32);
 	}
 
 	/**
 	 * @return the most amount of moves you could play on this board size
 	 */
 	public int getMaxDepth() {
-		return height * (width + 1) + (height + 1) + width;
-	}
-
-	/**
-	 * @return amount of bits of unique data for efficient hashcode
-	 */
-	int getHashCodeBitSize() {
-		return getMaxDepth() + 2 * height * width;
+		return layout.edgeCount;
 	}
 
 	void forfeit() {
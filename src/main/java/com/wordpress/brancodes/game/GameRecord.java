@@ -0,0 +1,94 @@
+package com.wordpress.brancodes.game;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * one whole game: the board it started on and every move, players taking turns from player 1
+ * @param tileValues points of each tile, row by row
+ * @param moves each one numbered as in {@link GameBoard#move(int, int)}, among the edges still open before it
+ * @param forfeited the player that gave up after the last move, 0 if the game was played out
+ */
+public record GameRecord(int height, int width, byte[] tileValues, int[] moves, int forfeited) {
+
+	public GameRecord {
+		tileValues = tileValues.clone();
+		moves = moves.clone();
+	}
+
+	/**
+	 * @param start the board before the first move
+	 * @param edges drawn one after another, as {@link GameBoard#getMove()} gives them
+	 */
+	public static GameRecord of(final GameBoard start, final List<Integer> edges, final int forfeited) {
+		final GameBoard gameBoard = start.clone();
+		final int[] moves = new int[edges.size()];
+		for (int i = 0; i < moves.length; i++) {
+			final int edge = edges.get(i);
+			for (int other = 0; other < edge; other++)
+				if (gameBoard.isOpen(other))
+					moves[i]++;
+			gameBoard.moveEdge(i % 2 + 1, edge);
+		}
+		final BoardLayout layout = start.getLayout();
+		return new GameRecord(layout.height, layout.width, layout.tileValues, moves, forfeited);
+	}
+
+	@Override
+	public byte[] tileValues() {
+		return tileValues.clone();
+	}
+
+	@Override
+	public int[] moves() {
+		return moves.clone();
+	}
+
+	public GameBoard start() {
+		return new GameBoard(height, width, tileValues);
+	}
+
+	/**
+	 * play the game again on one board
+	 * @param afterMove given the board after each move, the same board every time, changed by the next move
+	 */
+	public void replay(final Consumer<GameBoard> afterMove) {
+		final GameBoard gameBoard = start();
+		for (int i = 0; i < moves.length; i++) {
+			gameBoard.move(i % 2 + 1, moves[i]);
+			afterMove.accept(gameBoard);
+		}
+	}
+
+	/**
+	 * @return the board at the end of the game
+	 */
+	public GameBoard end() {
+		final GameBoard gameBoard = start();
+		for (int i = 0; i < moves.length; i++)
+			gameBoard.move(i % 2 + 1, moves[i]);
+		if (forfeited != 0)
+			gameBoard.forfeit();
+		return gameBoard;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		return o instanceof GameRecord other && height == other.height && width == other.width && forfeited == other.forfeited
+			   && Arrays.equals(tileValues, other.tileValues) && Arrays.equals(moves, other.moves);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(height, width, Arrays.hashCode(tileValues), Arrays.hashCode(moves), forfeited);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("GameRecord[%dx%d, tileValues=%s, moves=%s, forfeited=%d]",
+							 height, width, Arrays.toString(tileValues), Arrays.toString(moves), forfeited);
+	}
+
+}
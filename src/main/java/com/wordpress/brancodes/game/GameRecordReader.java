@@ -0,0 +1,144 @@
+package com.wordpress.brancodes.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.wordpress.brancodes.game.GameRecordWriter.*;
+
+/**
+ * reads the games of a file {@link GameRecordWriter} wrote, in order, from a memory mapping of the file so the pages
+ * are read ahead by the OS and nothing is copied on the way; files bigger than one mapping are mapped a window at a time
+ */
+public final class GameRecordReader implements Iterator<GameRecord>, Closeable {
+
+	private static final long WINDOW = 1L << 30;
+	private static final int MAX_VARINT_BYTES = 5;
+
+	private final FileChannel channel;
+	private final long size;
+	private MappedByteBuffer buffer;
+	private long bufferStart; // where in the file the mapping starts
+	private long position; // of the next record
+	private int end; // where in the buffer the record being read ends
+
+	/**
+	 * @throws IOException if the file can't be mapped or isn't a game record file of this version
+	 */
+	public GameRecordReader(final Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			size = channel.size();
+			map(0);
+			if (size < HEADER_BYTES || buffer.getLong(0) != MAGIC || buffer.getInt(Long.BYTES) != VERSION)
+				throw new IOException("not a game record file of version " + VERSION + ": " + file);
+			position = HEADER_BYTES;
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return position < size;
+	}
+
+	/**
+	 * @throws IllegalStateException if the file ends partway through the record, a field doesn't fit in what is left of
+	 * it or is out of range, or it can't be mapped
+	 */
+	@Override
+	public GameRecord next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		final long record = position;
+		seek(MAX_VARINT_BYTES);
+		end = buffer.limit();
+		final int length = getVarint(record);
+		final long start = bufferStart + buffer.position();
+		if (length > WINDOW)
+			throw malformed(record, "a length of " + length);
+		if (start + length > size)
+			throw new IllegalStateException("the record at byte " + record + " is cut off");
+		if (buffer.remaining() < length) {
+			position = start;
+			seek(length);
+		}
+		end = buffer.position() + length;
+		final int height = getVarint(record);
+		final int width = getVarint(record);
+		final int edges = GameBoard.edgeCount(height, width);
+		if (edges == -1 || height * width > end - buffer.position())
+			throw malformed(record, "a " + height + "x" + width + " board");
+		final byte[] tileValues = new byte[height * width];
+		buffer.get(tileValues);
+		for (final byte tileValue : tileValues)
+			if (tileValue < 0)
+				throw malformed(record, "a tile value of " + tileValue);
+		final int moveCount = getVarint(record);
+		if (moveCount > edges || moveCount >= end - buffer.position()) // every move takes a byte, and so does the forfeit
+			throw malformed(record, moveCount + " moves");
+		final int[] moves = new int[moveCount];
+		for (int i = 0; i < moves.length; i++)
+			if ((moves[i] = getVarint(record)) >= edges - i)
+				throw malformed(record, "move " + moves[i] + " among " + (edges - i) + " open edges");
+		if (buffer.position() == end)
+			throw malformed(record, "no forfeit");
+		final int forfeited = buffer.get();
+		if (forfeited < 0 || forfeited > 2)
+			throw malformed(record, "player " + forfeited + " forfeiting");
+		position = start + length;
+		return new GameRecord(height, width, tileValues, moves, forfeited);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * point the buffer at the next record, mapping the window it starts if fewer than this many bytes of it are mapped
+	 */
+	private void seek(final int bytes) {
+		if (position - bufferStart + Math.min(bytes, size - position) > buffer.limit()) {
+			try {
+				map(position);
+			} catch (final IOException e) {
+				throw new IllegalStateException("can't map the game records at byte " + position, e);
+			}
+		}
+		buffer.position((int) (position - bufferStart));
+	}
+
+	private void map(final long start) throws IOException {
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+		bufferStart = start;
+	}
+
+	/**
+	 * @param record where it starts in the file, for the message if the varint doesn't end inside it
+	 */
+	private int getVarint(final long record) {
+		int value = 0;
+		for (int shift = 0; shift < 7 * MAX_VARINT_BYTES && buffer.position() < end; shift += 7) {
+			final byte b = buffer.get();
+			if (shift == 7 * (MAX_VARINT_BYTES - 1) && (b & 0x78) != 0)
+				throw malformed(record, "a number too large for an int");
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw malformed(record, "a number running past it");
+	}
+
+	private static IllegalStateException malformed(final long record, final String what) {
+		return new IllegalStateException("the record at byte " + record + " has " + what);
+	}
+
+}
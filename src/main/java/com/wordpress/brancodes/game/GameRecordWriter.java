@@ -0,0 +1,98 @@
+package com.wordpress.brancodes.game;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * appends games to a file of {@link GameRecord}s, buffered, from any number of threads
+ * <p>
+ * the file is an 8 byte magic number and a 4 byte version, then the records one after another. a record is its length
+ * in bytes after the length, the height and width, a byte for each tile value, the amount of moves, each move, and the
+ * player that forfeited or 0; every number but the tile values and the forfeit is an unsigned LEB128 varint, so a move
+ * on a board with fewer than 128 edges is one byte and a 3x3 game takes under 40
+ */
+public final class GameRecordWriter implements Closeable {
+
+	static final long MAGIC = 0x44424F5847414D45L; // "DBOXGAME"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = Long.BYTES + Integer.BYTES;
+
+	private final OutputStream out;
+	private byte[] record = new byte[256]; // encoded before it's written, to know its length
+	private final byte[] prefix = new byte[5]; // the length
+	private long records;
+
+	/**
+	 * start a new file, replacing one that is there
+	 */
+	public GameRecordWriter(final Path file) throws IOException {
+		out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+		out.write(ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC).putInt(VERSION).array());
+	}
+
+	public synchronized void write(final GameRecord game) throws IOException {
+		final byte[] tileValues = game.tileValues();
+		final int[] moves = game.moves();
+		int length = put(game.height(), 0);
+		length = put(game.width(), length);
+		ensure(length + tileValues.length);
+		System.arraycopy(tileValues, 0, record, length, tileValues.length);
+		length += tileValues.length;
+		length = put(moves.length, length);
+		for (final int move : moves)
+			length = put(move, length);
+		ensure(length + 1);
+		record[length++] = (byte) game.forfeited();
+		out.write(prefix, 0, putVarint(prefix, 0, length));
+		out.write(record, 0, length);
+		records++;
+	}
+
+	/**
+	 * @return games written so far
+	 */
+	public synchronized long getRecordCount() {
+		return records;
+	}
+
+	/**
+	 * write out what is buffered, the records so far can then be read
+	 */
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+	private int put(final int value, final int index) {
+		ensure(index + 5);
+		return putVarint(record, index, value);
+	}
+
+	/**
+	 * @return the index after the varint
+	 */
+	private static int putVarint(final byte[] array, int index, int value) {
+		while ((value & ~0x7F) != 0) {
+			array[index++] = (byte) (value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		array[index++] = (byte) value;
+		return index;
+	}
+
+	private void ensure(final int length) {
+		if (length > record.length)
+			record = Arrays.copyOf(record, Math.max(length, 2 * record.length));
+	}
+
+}
@@ -1,97 +1,1213 @@
 package com.wordpress.brancodes.game;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
-public class MinimaxPlayer extends Player {
+import static com.wordpress.brancodes.game.TranspositionTable.*;
 
-	private final int layers; // how many plies deep it will search
-	boolean storeStates; // should we use the storage table? hashcodes may exceed int range and cause mass collision otherwise
-	private final Map<Integer, HashMap<GameBoard, Integer>> stateStorageTable; // <layer number, <board, score>>
+public class MinimaxPlayer extends Player implements AutoCloseable {
+
+	/**
+	 * how a search with more than one thread splits the work
+	 */
+	public enum Parallelism {
+		/**
+		 * the younger children of a board are searched in parallel once its eldest is searched,
+		 * picking the same move with the same score as searching on one thread
+		 */
+		YOUNG_BROTHERS_WAIT,
+		/**
+		 * helper threads deepen on their own copies of the tree, staggered by depth and root move order,
+		 * and only share what they find through the transposition table
+		 */
+		LAZY_SMP
+	}
+
+	/**
+	 * how a board's children are searched
+	 */
+	public enum Algorithm {
+		/**
+		 * every child with the board's whole alpha beta window
+		 */
+		ALPHA_BETA,
+		/**
+		 * the first child with the whole window and the rest with a null window that only proves they're no better,
+		 * searching one again with the whole window when it is; at the root the window is narrowed around the
+		 * last iteration's score and widened if the score falls outside it
+		 */
+		PRINCIPAL_VARIATION
+	}
+
+	private static final long DEFAULT_TABLE_BYTES = 32L << 20;
+
+	private static final SearchTimeout TIMEOUT = new SearchTimeout();
+	private static final SearchTimeout CANCELLED = new SearchTimeout(); // a sibling searched in parallel already cut off
+	private static final int SPLIT_DEPTH = 3; // plies left below a board for its younger children to be searched in parallel
+	private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(daemon("minimax-watchdog"));
+	private static final ScheduledExecutorService PROGRESS = Executors.newSingleThreadScheduledExecutor(daemon("minimax-progress"));
+	private static final int PROGRESS_MILLIS = 250;
+	private static final ThreadLocal<MoveEquivalence> EQUIVALENCE = ThreadLocal.withInitial(MoveEquivalence::new); // its buffers
+	private static final ThreadLocal<EndgameSolver> ENDGAME = ThreadLocal.withInitial(EndgameSolver::new); // its buffers
+	private static final long ENDGAME_TABLE_BYTES = 4L << 20;
+	private static final int KILLER = 1 << 24; // below captures, above any history score
+	private static final int MAX_HISTORY = 1 << 20;
+	private static final int SOLVED_DEPTH = 0xFF; // deepest a table entry can say, for exact values of the whole rest of the game
+	private static final int PERSIST_DEPTH = 2; // shallower results are cheaper to search again than to write to disk
+	private static final int DEFAULT_QUIESCENCE_PLIES = 8;
+	private static final int ASPIRATION = 2; // half the root window around the last iteration's score, doubled each time it fails
+
+	private final int maxLayers; // how many plies deep it will search
+	private final long moveNanos; // time for each move if searching deeper until it runs out, otherwise 0
+	private final long maxNodes; // node budget for each move in that mode, 0 for none
+	private final TranspositionTable table; // <position key, score with its depth and bound>
+	private final TranspositionTable endgameValues = new TranspositionTable(ENDGAME_TABLE_BYTES); // <chains key, exact value>
+	private PositionStore store; // null for none
+	private boolean persisting; // the search being run uses the store, its evaluation has an id to store results by
+	private NodeCache nodeCache = new NodeCache(NodeCache.DEFAULT_BYTES);
+	private Algorithm algorithm = Algorithm.PRINCIPAL_VARIATION;
+	private Evaluation evaluation = Evaluation.SCORE; // of the boards at the depth limit
+	private int quiescencePlies = DEFAULT_QUIESCENCE_PLIES; // most captures searched past the depth limit
+	private boolean inPlace = true; // search below the root moves on one board with make/unmake
+	private boolean mergeEquivalentMoves = true; // search one move of each group that leads to the same game
+	private long fingerprint; // of the board being searched and what changes its scores, which position keys leave out
+	private long tableSalt; // the fingerprint mixed with the table's epoch, mixed into the table's keys
+	private long tableEpoch; // changed to forget every entry in the table
+	private GameBoard played; // the last move it played, with the children its search expanded below it
+	private final ForkJoinPool pool; // young brothers wait, null to search on the calling thread
+	private final ExecutorService helpers; // lazy SMP, null for none
+	private final int helperCount;
+	private final Set<Long> searchThreads = ConcurrentHashMap.newKeySet(); // ids of the helper and pool threads
+	private final SearchCounters counters = new SearchCounters();
+	private SearchStatistics statistics;
+	private int score; // what the last move's search expected, from this player's side
+	private long deadline;
+	private boolean timed; // has a deadline
+	private long searchStart;
+	private volatile Consumer<SearchProgress> listener; // of the asynchronous search running, null for none
+	private volatile SearchProgress progress; // as of the last iteration that finished
+	private ExecutorService asyncSearches; // created with the first asynchronous search
+	private volatile boolean closed; // its threads are let go
+	private volatile CompletableFuture<SearchResult> asyncSearch; // running
+	private volatile Run run; // what stops the search running, null between searches
+	private volatile boolean helpersDone; // the main search finished, helpers stop
+	private int[][] history; // <player to move - 1, edge, how much cutting off it has done>, kept between moves
 
 	public MinimaxPlayer(final int playerID, final int layers) {
+		this(playerID, layers, DEFAULT_TABLE_BYTES);
+	}
+
+	/**
+	 * @param tableBytes memory budget of the memoization table, allocated up front
+	 */
+	public MinimaxPlayer(final int playerID, final int layers, final long tableBytes) {
+		this(playerID, layers, tableBytes, 1);
+	}
+
+	/**
+	 * @param threads more than 1 to search the younger children of a board in parallel once its eldest is searched,
+	 * picking the same move with the same score as searching on one thread
+	 */
+	public MinimaxPlayer(final int playerID, final int layers, final long tableBytes, final int threads) {
+		this(playerID, layers, tableBytes, threads, Parallelism.YOUNG_BROTHERS_WAIT);
+	}
+
+	public MinimaxPlayer(final int playerID, final int layers, final long tableBytes, final int threads, final Parallelism parallelism) {
+		this(playerID, layers, 0, 0, tableBytes, threads, parallelism);
+	}
+
+	/**
+	 * search 1, 2, 3... plies deep until the time for the move runs out,
+	 * then play the best move of the deepest search that finished
+	 */
+	public MinimaxPlayer(final int playerID, final Duration moveTime) {
+		this(playerID, moveTime, 0, DEFAULT_TABLE_BYTES);
+	}
+
+	/**
+	 * search 1, 2, 3... plies deep until it reaches the depth or the time for the move runs out
+	 */
+	public MinimaxPlayer(final int playerID, final int layers, final Duration moveTime, final long tableBytes) {
+		this(playerID, layers, moveTime.toNanos(), 0, tableBytes, 1, Parallelism.YOUNG_BROTHERS_WAIT);
+	}
+
+	/**
+	 * @param maxNodes also stop deepening after visiting this many boards in one move, 0 for no limit
+	 */
+	public MinimaxPlayer(final int playerID, final Duration moveTime, final long maxNodes, final long tableBytes) {
+		this(playerID, moveTime, maxNodes, tableBytes, 1);
+	}
+
+	public MinimaxPlayer(final int playerID, final Duration moveTime, final long maxNodes, final long tableBytes, final int threads) {
+		this(playerID, moveTime, maxNodes, tableBytes, threads, Parallelism.YOUNG_BROTHERS_WAIT);
+	}
+
+	public MinimaxPlayer(final int playerID, final Duration moveTime, final long maxNodes, final long tableBytes, final int threads,
+						 final Parallelism parallelism) {
+		this(playerID, Integer.MAX_VALUE, moveTime.toNanos(), maxNodes, tableBytes, threads, parallelism);
+	}
+
+	private MinimaxPlayer(final int playerID, final int maxLayers, final long moveNanos, final long maxNodes,
+						  final long tableBytes, final int threads, final Parallelism parallelism) {
 		super(playerID);
-		this.layers = layers;
-		stateStorageTable = new HashMap<>();
+		this.maxLayers = maxLayers;
+		this.moveNanos = moveNanos;
+		this.maxNodes = maxNodes;
+		table = new TranspositionTable(tableBytes);
+		final boolean split = threads > 1 && parallelism == Parallelism.YOUNG_BROTHERS_WAIT;
+		pool = split ? new ForkJoinPool(threads, forkJoinPool -> {
+			final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			searchThreads.add(worker.getId());
+			return worker;
+		}, null, false) : null;
+		helperCount = threads > 1 && !split ? threads - 1 : 0;
+		helpers = helperCount > 0 ? Executors.newFixedThreadPool(helperCount, runnable -> {
+			final Thread helper = daemon("minimax-helper").newThread(runnable);
+			searchThreads.add(helper.getId());
+			return helper;
+		}) : null;
+	}
+
+	private static ThreadFactory daemon(final String name) {
+		return runnable -> {
+			final Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * also look up and write through search results in a store that outlives the move, and can be shared between players
+	 * @param store null to stop using one
+	 */
+	public void setPositionStore(final PositionStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * @param bytes memory cap for the children boards keep between iterations and moves, the search tree below them
+	 * is let go as soon as it's searched
+	 */
+	public void setNodeCacheBytes(final long bytes) {
+		nodeCache = new NodeCache(bytes);
+	}
+
+	public void setAlgorithm(final Algorithm algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	/**
+	 * @param evaluation of the boards at the depth limit, a position store only shares results between players
+	 * using one with the same {@link Evaluation#id() id}, and isn't used with one without
+	 */
+	public void setEvaluation(final Evaluation evaluation) {
+		if (evaluation.id() == 0 && evaluation != this.evaluation)
+			tableEpoch++; // nothing else keeps its scores in the table apart from the last one's
+		this.evaluation = evaluation;
+	}
+
+	/**
+	 * @param plies most captures searched past the depth limit before a board is evaluated, 0 to evaluate it right there;
+	 * a position store only shares results between players searching the same amount
+	 */
+	public void setQuiescencePlies(final int plies) {
+		quiescencePlies = plies;
+	}
+
+	/**
+	 * @param inPlace search below the root moves on one board per thread, drawing and taking back edges on it,
+	 * which allocates nothing per node; otherwise every node is a board of its own, which lets the node cache keep
+	 * the tree near the root between iterations and moves. young brothers wait always needs a board per node
+	 */
+	public void setSearchInPlace(final boolean inPlace) {
+		this.inPlace = inPlace;
+	}
+
+	/**
+	 * @param merge search only one of the moves {@link MoveEquivalence} finds lead to the same game, which gives the same
+	 * scores with fewer boards to search, mostly late in the game when captured areas have spare edges left
+	 */
+	public void setMergeEquivalentMoves(final boolean merge) {
+		mergeEquivalentMoves = merge;
 	}
 
 	@Override
 	public void move(final GameBoard gameBoard) {
-		storeStates = gameBoard.getHashCodeBitSize() <= 32;
-		if (storeStates)
-			stateStorageTable.clear();
-		GameBoard best = null;
-		int bestScore = Integer.MIN_VALUE;
-		for (GameBoard move : gameBoard.expand(getPlayerID())) {
-			int score = getScore(move, 1, false, bestScore, Integer.MAX_VALUE);
-			if (score > bestScore) {
-				bestScore = score;
-				best = move;
-			}
-		}
+		final GameBoard best = search(gameBoard, maxLayers, 0, null, new Run(Run.NEVER));
 		// (guaranteed not to be empty because it checks if the game is complete before)
-		if (best.getScore() < 0)
+		if (isLost(best)) {
 			gameBoard.forfeit();
-		else
+			played = null;
+		} else {
 			gameBoard.move(best);
+			played = best;
+		}
+	}
+
+	/**
+	 * search the board on another thread without playing the move; searches of one player run one at a time,
+	 * and it shouldn't {@link #move(GameBoard)} while one is running
+	 * @param deadline also stop deepening this long after the search starts, zero for only the player's own budget
+	 * @param progress told the best move so far after every iteration and about every quarter second in between,
+	 * from the searching thread or a timer thread so it should be quick; null for none
+	 * @return completes with the best move of the deepest iteration finished once the search runs out of depth or budget,
+	 * reaches the deadline or is {@link #stop(CompletableFuture) stopped}. cancelling it instead abandons the search,
+	 * which stops using the processor straight away
+	 * @throws IllegalArgumentException if the game is over
+	 * @throws IllegalStateException if the player is closed
+	 */
+	public CompletableFuture<SearchResult> searchAsync(final GameBoard gameBoard, final Duration deadline,
+													   final Consumer<SearchProgress> progress) {
+		if (gameBoard.complete())
+			throw new IllegalArgumentException("the game is over");
+		final GameBoard root = gameBoard.clone();
+		final AsyncSearch result = new AsyncSearch();
+		result.whenComplete((ignored, e) -> {
+			if (result.isCancelled())
+				result.run.abandoned = true;
+		});
+		asyncSearches().execute(() -> {
+			asyncSearch = result;
+			if (closed) // waiting when the player was closed
+				result.cancel(false);
+			try {
+				if (result.run.abandoned)
+					return;
+				final GameBoard best = search(root, maxLayers, deadline.toNanos(), progress == null ? ignored -> {} : progress,
+											  result.run);
+				if (best != null) // otherwise it was abandoned
+					result.complete(new SearchResult(isLost(best) ? -1 : best.getMove(), score, statistics));
+			} catch (final RuntimeException | Error e) {
+				result.completeExceptionally(e);
+			} finally {
+				asyncSearch = null;
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * search the board on the calling thread without playing the move, so one player can answer about boards of
+	 * unrelated games one after another
+	 * @param layers most plies deep to search this time, no deeper than the player's own depth
+	 * @param deadline also stop deepening this long after the search starts, zero for only the player's own budget
+	 * @return the best move of the deepest iteration that finished
+	 * @throws IllegalArgumentException if the game is over
+	 */
+	public SearchResult search(final GameBoard gameBoard, final int layers, final Duration deadline) {
+		return search(gameBoard, layers, deadline, Run.NEVER);
+	}
+
+	/**
+	 * {@link #search(GameBoard, int, Duration) search} the board until it is done or the condition is met, which is
+	 * checked along with the budget about every millisecond. meeting it is a {@link #stop()} of only this search,
+	 * and if it is met before the search starts, the search stops after its first iteration
+	 * @param stopped true once the search should stop
+	 * @throws IllegalArgumentException if the game is over
+	 */
+	public SearchResult search(final GameBoard gameBoard, final int layers, final Duration deadline,
+							   final BooleanSupplier stopped) {
+		if (gameBoard.complete())
+			throw new IllegalArgumentException("the game is over");
+		final GameBoard best = search(gameBoard.clone(), Math.min(layers, maxLayers), deadline.toNanos(), null,
+									  new Run(stopped));
+		return new SearchResult(isLost(best) ? -1 : best.getMove(), score, statistics);
+	}
+
+	private synchronized ExecutorService asyncSearches() {
+		if (closed)
+			throw new IllegalStateException("the player is closed");
+		if (asyncSearches == null)
+			asyncSearches = Executors.newSingleThreadExecutor(daemon("minimax-search"));
+		return asyncSearches;
+	}
+
+	/**
+	 * search the board without playing the move found
+	 * @param layers most plies deep, the player's own depth unless a search asks for less
+	 * @param limit also stop deepening this many nanoseconds after the start, 0 for only the player's own budget
+	 * @param listener told about the iterations as they finish, null for none; with one it always deepens, so there is
+	 * a best move so far
+	 * @param run what stops this search, only this one
+	 * @return the best move of the deepest iteration that finished, null if the search was abandoned before the first
+	 */
+	private GameBoard search(final GameBoard gameBoard, final int layers, final long limit, final Consumer<SearchProgress> listener,
+							 final Run run) {
+		final SearchEvent event = new SearchEvent();
+		event.begin();
+		final long start = System.nanoTime();
+		final Map<Long, Long> allocation = SearchCounters.allocationSnapshot(searchThreads());
+		table.nextGeneration(); // what the last move searched is still true, but the new move's results come first
+		fingerprint = gameBoard.getLayout().fingerprint ^ getPlayerID() // scores are from the player's side
+					  ^ (long) quiescencePlies << 2 // which changes every score at the depth limit
+					  ^ evaluation.id() << 32;
+		persisting = store != null && evaluation.id() != 0;
+		tableSalt = BoardLayout.mix(fingerprint ^ tableEpoch); // so another board of the size doesn't read this one's scores
+		final GameBoard reply = played == null ? null : played.findChild(gameBoard); // the opponent's move, searched last time
+		final GameBoard root = reply == null ? gameBoard : reply;
+		nodeCache.reset(root);
+		final List<GameBoard> rootMoves = getRootMoves(root);
+		final boolean deepening = moveNanos > 0 || maxNodes > 0 || limit > 0 || listener != null;
+		final int lastLayer = Math.min(layers, gameBoard.getOpenEdgeAmount());
+		resetHistory(gameBoard);
+		timed = moveNanos > 0 || limit > 0;
+		deadline = start + (moveNanos > 0 && limit > 0 ? Math.min(moveNanos, limit) : Math.max(moveNanos, limit));
+		counters.reset(lastLayer);
+		this.run = run;
+		helpersDone = false;
+		final ScheduledFuture<?> watchdog = deepening
+				? WATCHDOG.scheduleAtFixedRate(() -> checkBudget(run), 1, 1, TimeUnit.MILLISECONDS) : null;
+		this.listener = listener;
+		progress = null;
+		searchStart = start;
+		final ScheduledFuture<?> reporter = listener == null ? null
+				: PROGRESS.scheduleAtFixedRate(this::reportProgress, PROGRESS_MILLIS, PROGRESS_MILLIS, TimeUnit.MILLISECONDS);
+		final List<Future<?>> helperSearches = startHelpers(gameBoard, lastLayer);
+		final Search search = new Search(lastLayer, false, root);
+		final GameBoard best;
+		try {
+			best = search.deepen(rootMoves, deepening ? 1 : layers, deepening ? lastLayer : layers);
+		} finally {
+			if (watchdog != null)
+				watchdog.cancel(false);
+			if (reporter != null)
+				reporter.cancel(false);
+			this.listener = null;
+			stopHelpers(helperSearches);
+			this.run = null;
+		}
+		score = search.completedScore;
+		statistics = counters.toStatistics(search.completedLayers, nodeCache.occupancy(), nodeCache.capacity(),
+										   SearchCounters.allocatedSince(allocation, searchThreads()), System.nanoTime() - start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(getPlayerID(), statistics);
+			event.commit();
+		}
+		return best;
+	}
+
+	/**
+	 * remember the iteration that finished and tell the listener
+	 */
+	private void reportIteration(final int depth, final int move, final int score) {
+		final SearchProgress iteration = new SearchProgress(depth, move, score, counters.nodes(),
+															Duration.ofNanos(System.nanoTime() - searchStart));
+		progress = iteration;
+		final Consumer<SearchProgress> listener = this.listener;
+		if (listener != null)
+			listener.accept(iteration);
+	}
+
+	/**
+	 * tell the listener how the search is going since the last iteration finished
+	 */
+	private void reportProgress() {
+		final SearchProgress last = progress;
+		final Consumer<SearchProgress> listener = this.listener;
+		if (last != null && listener != null)
+			listener.accept(new SearchProgress(last.depth(), last.move(), last.score(), counters.nodes(),
+											   Duration.ofNanos(System.nanoTime() - searchStart)));
+	}
+
+	/**
+	 * play the best move of the deepest iteration finished so far, or complete an asynchronous search with it,
+	 * from another thread; the first iteration always finishes, and a search to a fixed depth without a time for
+	 * the move is never stopped early. only the search running is stopped, if there is none it does nothing
+	 */
+	public void stop() {
+		final Run run = this.run;
+		if (run != null)
+			run.outOfBudget = true;
+	}
+
+	/**
+	 * {@link #stop() stop} one asynchronous search: if it hasn't started it stops after its first iteration,
+	 * if it's done nothing happens. the player's other searches aren't affected
+	 * @param search what {@link #searchAsync} returned
+	 * @throws IllegalArgumentException if it's a future of something else
+	 */
+	public void stop(final CompletableFuture<SearchResult> search) {
+		if (!(search instanceof AsyncSearch async))
+			throw new IllegalArgumentException("not an asynchronous search");
+		async.run.outOfBudget = true;
+	}
+
+	/**
+	 * let go of the player's threads: the asynchronous search running is abandoned along with those waiting, and a move
+	 * being searched is {@link #stop() stopped}. it can't search asynchronously afterwards, and a player made with more
+	 * than one thread can't search at all
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			if (asyncSearches != null)
+				asyncSearches.shutdown();
+		}
+		final CompletableFuture<SearchResult> running = asyncSearch;
+		if (running != null)
+			running.cancel(false);
+		stop();
+		if (pool != null)
+			pool.shutdown();
+		if (helpers != null)
+			helpers.shutdown();
+	}
+
+	/**
+	 * forget every search result in the table, without touching its memory: its keys change so none of the entries are
+	 * found again, and they are written over as new ones come in. boards with other tile values, or searched with other
+	 * settings, never share entries anyway. the history of which moves cut off is forgotten too, so the next search
+	 * goes just like a new player's
+	 */
+	public void clearTable() {
+		tableEpoch++;
+		history = null;
+	}
+
+	/**
+	 * @return what the search of the last move expected the game to end with, this player's points minus the other's
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return boards visited during the last move, by every thread
+	 */
+	public long getNodeCount() {
+		return counters.nodes();
+	}
+
+	/**
+	 * @return what the last move's search did, null before the first move
+	 */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return the calling thread and every thread that can search for it
+	 */
+	private List<Long> searchThreads() {
+		final List<Long> threadIds = new ArrayList<>(searchThreads);
+		threadIds.add(Thread.currentThread().getId());
+		return threadIds;
+	}
+
+	private List<GameBoard> getRootMoves(final GameBoard gameBoard) {
+		final List<GameBoard> rootMoves = new ArrayList<>();
+		final Set<Long> searched = new HashSet<>();
+		final int[] representatives = findRepresentatives(gameBoard);
+		for (GameBoard move : gameBoard.expand(getPlayerID()))
+			if ((representatives == null || representatives[move.getMove()] == move.getMove()) // or one leading to the same game
+				&& searched.add(move.getCanonicalKey())) // otherwise a mirror image of a move that will be searched
+				rootMoves.add(move);
+		return rootMoves;
+	}
+
+	/**
+	 * @return for each open edge the equivalent edge to search instead, null to search them all
+	 */
+	private int[] findRepresentatives(final GameBoard gameBoard) {
+		if (!mergeEquivalentMoves)
+			return null;
+		final int[] representatives = new int[gameBoard.getMaxDepth()];
+		EQUIVALENCE.get().find(gameBoard, representatives);
+		return representatives;
+	}
+
+	/**
+	 * @param representatives as {@link MoveEquivalence} finds them after the first move was searched, null for none yet
+	 * @param first the move searched first, which stands for its group whether it's the first of it or not
+	 * @return if a move leading to the same game as the edge is searched instead
+	 */
+	private static boolean isMerged(final int[] representatives, final int first, final int edge) {
+		return representatives != null && (representatives[edge] != edge || representatives[first] == edge);
+	}
+
+	/**
+	 * every helper gets its own copy of the board, a board's children are only ever expanded by one thread
+	 */
+	private List<Future<?>> startHelpers(final GameBoard gameBoard, final int lastLayer) {
+		final List<Future<?>> helperSearches = new ArrayList<>();
+		for (int helper = 1; helper <= helperCount; helper++) {
+			final List<GameBoard> rootMoves = getRootMoves(gameBoard.clone());
+			Collections.rotate(rootMoves, -helper);
+			final int firstLayer = 1 + helper % 2;
+			final Search search = new Search(lastLayer, true, gameBoard); // copies the history before the main search changes it
+			helperSearches.add(helpers.submit(() -> search.deepen(rootMoves, firstLayer, lastLayer)));
+		}
+		return helperSearches;
+	}
+
+	private void stopHelpers(final List<Future<?>> helperSearches) {
+		helpersDone = true;
+		for (final Future<?> helperSearch : helperSearches) {
+			try {
+				helperSearch.get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (final ExecutionException e) {
+				throw new IllegalStateException("helper search failed", e.getCause());
+			}
+		}
 	}
 
 	/**
-	 * @param depth the current depth we've searched to check if we've reached the set limit
-	 * @param max to max or min the children depending on whose turn it is
+	 * history is halved so older moves still count but less
 	 */
-	private int getScore(GameBoard gameBoard, int depth, boolean max, int alpha, int beta) {
-		if (storeStates)
-			return getScoreTable(gameBoard, depth, max, alpha, beta);
+	private void resetHistory(final GameBoard gameBoard) {
+		if (history == null || history[0].length != gameBoard.getMaxDepth())
+			history = new int[2][gameBoard.getMaxDepth()];
 		else
-			return getScoreSearch(gameBoard, depth, max, alpha, beta);
+			for (final int[] playerHistory : history)
+				for (int edge = 0; edge < playerHistory.length; edge++)
+					playerHistory[edge] >>= 1;
 	}
 
 	/**
-	 * @return score of a game based on depth searching the board's children
+	 * one thread's iterative deepening, with the killer moves and history it found; only the table is shared
 	 */
-	private int getScoreSearch(final GameBoard gameBoard, final int depth, boolean max, int alpha, int beta) {
-		if (depth == layers)
-			return getScoreCompleted(gameBoard);
-		final int nextDepth = depth + 1;
-		int best = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
-		final Iterator<GameBoard> expandIter = gameBoard.expandIter(max ? getPlayerID() : getOtherPlayerID());
-		while (expandIter.hasNext()) {
-			int score = getScore(expandIter.next(), nextDepth, !max, alpha, beta);
-			if (max) {
-				best = Math.max(best, score);
+	private final class Search {
+
+		private final int[][] killers; // <depth, the last two edges that caused a cutoff there>
+		private final int[][] history; // the player's for the main search, otherwise a copy only this search changes
+		private final boolean helper; // a lazy SMP helper, its results only matter through the table
+		private final Run run; // of the player's search this is part of
+		private int layers; // depth of the current iteration
+		private int completedLayers; // depth of the deepest iteration that finished
+		private int completedScore; // score of its best move
+		private int rootScore; // score of the best root move of the last root search
+		private boolean interruptible; // the first iteration always finishes so there is a move to play
+		private final GameBoard board; // searched in place below the root moves, null for a board per node
+		private final int[][] moves; // <depth, open edges of the board in place>
+		private final int[][] ranks; // <depth, how soon to search each of those>
+		private final int[][] representatives; // <depth, edge, equivalent edge to search instead>, null to search every edge
+
+		/**
+		 * killer moves only fit the position they came from, so every move starts with none
+		 * @param root copied to search in place if the player does
+		 */
+		Search(final int depths, final boolean helper, final GameBoard root) {
+			killers = new int[depths + 1][2];
+			for (final int[] killer : killers)
+				Arrays.fill(killer, -1);
+			history = helper ? copy(MinimaxPlayer.this.history) : MinimaxPlayer.this.history;
+			this.helper = helper;
+			run = MinimaxPlayer.this.run;
+			interruptible = helper;
+			board = inPlace && pool == null ? root.clone() : null;
+			moves = board == null ? null : new int[depths + 1][root.getMaxDepth()];
+			ranks = board == null ? null : new int[depths + 1][root.getMaxDepth()];
+			representatives = board == null || !mergeEquivalentMoves ? null : new int[depths + 1][root.getMaxDepth()];
+		}
+
+		/**
+		 * a search of a younger child forked from this one, with copies of its killer moves and history so far; copied
+		 * before any sibling runs, so how the children are ordered doesn't depend on which thread gets to them first
+		 */
+		private Search(final Search parent) {
+			killers = copy(parent.killers);
+			history = copy(parent.history);
+			helper = parent.helper;
+			run = parent.run;
+			layers = parent.layers;
+			interruptible = parent.interruptible;
+			board = null; // young brothers wait always needs a board per node
+			moves = null;
+			ranks = null;
+			representatives = null;
+		}
+
+		/**
+		 * @return the best move of the deepest iteration that finished
+		 */
+		GameBoard deepen(final List<GameBoard> rootMoves, final int firstLayer, final int lastLayer) {
+			final int[] rootScores = new int[rootMoves.size()];
+			GameBoard best = null;
+			for (layers = firstLayer; layers <= lastLayer; layers++) {
+				if (!helper)
+					counters.startIteration();
+				final GameBoard iterationBest = algorithm == Algorithm.PRINCIPAL_VARIATION && best != null
+						? searchAspiration(rootMoves, rootScores)
+						: searchRoot(rootMoves, rootScores, Integer.MIN_VALUE, Integer.MAX_VALUE);
+				if (iterationBest == null) // ran out of time
+					break;
+				best = iterationBest;
+				if (!helper)
+					counters.finishIteration();
+				completedLayers = layers;
+				completedScore = rootScore;
+				if (!helper && listener != null)
+					reportIteration(layers, best.getMove(), rootScore);
+				sortByScore(rootMoves, rootScores); // the best moves so far get searched first, so they cut off more
+				interruptible = true;
+			}
+			return best;
+		}
+
+		/**
+		 * search the root with a window around the last iteration's score, which is usually close,
+		 * and again with a wider window on the side the score fell outside of until it lands inside
+		 * @return the best move or null if the search ran out of budget
+		 */
+		private GameBoard searchAspiration(final List<GameBoard> rootMoves, final int[] rootScores) {
+			int low = rootScore - ASPIRATION;
+			int high = rootScore + ASPIRATION;
+			for (int delta = 2 * ASPIRATION; ; delta *= 2) {
+				final GameBoard best = searchRoot(rootMoves, rootScores, low, high);
+				if (best == null)
+					return null;
+				if (rootScore <= low && low != Integer.MIN_VALUE)
+					low = (int) Math.max(Integer.MIN_VALUE, (long) rootScore - delta);
+				else if (rootScore >= high && high != Integer.MAX_VALUE)
+					high = (int) Math.min(Integer.MAX_VALUE, (long) rootScore + delta);
+				else
+					return best;
+			}
+		}
+
+		/**
+		 * @param low a score at or below it only proves the best move is no better
+		 * @param high a score at or above it only proves the best move is at least that good
+		 * @return the best move or null if the search ran out of budget
+		 */
+		private GameBoard searchRoot(final List<GameBoard> rootMoves, final int[] rootScores, final int low, final int high) {
+			if (pool == null)
+				return searchRootMoves(rootMoves, rootScores, low, high);
+			return pool.invoke(ForkJoinTask.adapt(() -> searchRootMoves(rootMoves, rootScores, low, high)));
+		}
+
+		private GameBoard searchRootMoves(final List<GameBoard> rootMoves, final int[] rootScores, final int low, final int high) {
+			GameBoard best = null;
+			int bestScore = Integer.MIN_VALUE;
+			try {
+				for (int i = 0; i < rootMoves.size() && bestScore < high; i++) {
+					final int alpha = Math.max(low, bestScore);
+					final GameBoard rootMove = rootMoves.get(i);
+					if (board != null)
+						board.copyPosition(rootMove);
+					final int score = getScoreScout(board == null ? rootMove : board, 1, true, alpha, high, best == null, null);
+					// a score at or below the best is only a bound that depends on search order, keep what's certain
+					// so the next iteration's order, and with it the move chosen between ties, is the same on any amount of threads
+					rootScores[i] = Math.max(score, bestScore);
+					if (score > bestScore) {
+						bestScore = score;
+						best = rootMoves.get(i);
+					}
+				}
+			} catch (final SearchTimeout timeout) {
+				return null;
+			}
+			rootScore = bestScore;
+			return best;
+		}
+
+		/**
+		 * captures first and tiles given away last, then the killer moves of this depth, then by history
+		 */
+		private int rankMove(final GameBoard gameBoard, final int edge, final int depth, final int player) {
+			final int rank = MoveOrdering.SAFE_FIRST.rank(gameBoard, edge);
+			if (rank > 0)
+				return rank;
+			if (edge == killers[depth][0])
+				return rank + 2 * KILLER;
+			if (edge == killers[depth][1])
+				return rank + KILLER;
+			return rank + history[player - 1][edge];
+		}
+
+		/**
+		 * remember a quiet move that caused a cutoff for its siblings and for the same move elsewhere in the tree
+		 */
+		private void recordCutoff(final GameBoard gameBoard, final int edge, final int depth, final int player) {
+			if (MoveOrdering.SAFE_FIRST.rank(gameBoard, edge) > 0)
+				return; // captures are searched first anyway
+			if (killers[depth][0] != edge) {
+				killers[depth][1] = killers[depth][0];
+				killers[depth][0] = edge;
+			}
+			final int remaining = layers - depth;
+			if ((history[player - 1][edge] += remaining * remaining) > MAX_HISTORY)
+				for (final int[] playerHistory : history)
+					for (int i = 0; i < playerHistory.length; i++)
+						playerHistory[i] >>= 1;
+		}
+
+		/**
+		 * stop an iteration that went over the move's time or node budget,
+		 * a search a parallel sibling made pointless, or a helper search the main search no longer needs
+		 */
+		private void countNode(final int depth, final SplitPoint split) {
+			counters.countNode(depth);
+			checkStop(split);
+		}
+
+		private void checkStop(final SplitPoint split) {
+			if (run.abandoned || interruptible && run.outOfBudget || helper && helpersDone)
+				throw TIMEOUT;
+			if (split != null && split.isCancelled())
+				throw CANCELLED;
+		}
+
+		/**
+		 * @param depth the current depth we've searched to check if we've reached the set limit
+		 * @param max to max or min the children depending on whose turn it is
+		 */
+		private int getScore(GameBoard gameBoard, int depth, boolean max, int alpha, int beta, SplitPoint split) {
+			countNode(depth, split);
+			if (depth == layers) {
+				counters.leafEvaluations.increment();
+				return getScoreQuiescence(gameBoard, 0, max, alpha, beta, split);
+			}
+			return getScoreTable(gameBoard, depth, max, alpha, beta, split);
+		}
+
+		/**
+		 * past the depth limit only captures are searched, so a board isn't scored just before a free tile is taken;
+		 * the player to move can always play something else instead and keep the board's evaluation
+		 * @param plies captures searched past the depth limit so far
+		 */
+		private int getScoreQuiescence(GameBoard gameBoard, int plies, boolean max, int alpha, int beta, SplitPoint split) {
+			final int player = max ? getPlayerID() : getOtherPlayerID();
+			final int standing = evaluate(gameBoard, player);
+			if (plies == quiescencePlies || (max ? standing >= beta : standing <= alpha))
+				return standing;
+			if (max)
+				alpha = Math.max(alpha, standing);
+			else
+				beta = Math.min(beta, standing);
+			int best = standing;
+			final BoardLayout layout = gameBoard.getLayout();
+			for (int edge = 0; edge < layout.edgeCount && alpha < beta; edge++) {
+				if (!gameBoard.isOpen(edge) || gameBoard.getMostDrawnSides(edge) != 3)
+					continue;
+				counters.quiescenceNodes.increment();
+				checkStop(split);
+				final int score;
+				if (board != null) {
+					gameBoard.makeMove(edge, player);
+					score = getScoreQuiescence(gameBoard, plies + 1, !max, alpha, beta, null);
+					gameBoard.unmakeMove();
+				} else
+					score = getScoreQuiescence(gameBoard.child(edge, player), plies + 1, !max, alpha, beta, split);
+				if (max) {
+					best = Math.max(best, score);
+					alpha = Math.max(alpha, score);
+				} else {
+					best = Math.min(best, score);
+					beta = Math.min(beta, score);
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * with principal variation search, a child after the first is expected to be no better than the best so far
+		 * and only searched with a null window proving that, unless it turns out better
+		 * @param max whether the child's parent is maxing
+		 */
+		private int getScoreScout(GameBoard child, int depth, boolean max, int alpha, int beta, boolean first, SplitPoint split) {
+			if (first || algorithm != Algorithm.PRINCIPAL_VARIATION || beta - alpha <= 1)
+				return getScore(child, depth, !max, alpha, beta, split);
+			final int score = max ? getScore(child, depth, false, alpha, alpha + 1, split)
+								  : getScore(child, depth, true, beta - 1, beta, split);
+			if (score > alpha && score < beta) // better than expected, find out by how much
+				return getScore(child, depth, !max, alpha, beta, split);
+			return score;
+		}
+
+		/**
+		 * @return score of a game by depth search but with reusing already checked boards with a memoization table,
+		 * where a score that caused a cutoff is only kept as the bound it proved
+		 */
+		private int getScoreTable(GameBoard gameBoard, int depth, boolean max, int alpha, int beta, SplitPoint split) {
+			final int remaining = layers - depth;
+			long entry = table.probe(gameBoard.getCanonicalKey() ^ tableSalt);
+			counters.tableProbes.increment();
+			if (entry != MISS)
+				counters.tableHits.increment();
+			else if (persisting && (entry = store.probe(gameBoard.getCanonicalKey(), fingerprint)) != MISS)
+				counters.storeHits.increment();
+			final int firstMove = entry == MISS || TranspositionTable.move(entry) == -1 ? -1 : gameBoard.fromCanonicalEdge(TranspositionTable.move(entry));
+			if (entry != MISS && depth(entry) >= remaining) {
+				final int score = score(entry);
+				switch (bound(entry)) {
+					case EXACT:
+						return score;
+					case LOWER:
+						alpha = Math.max(alpha, score);
+						break;
+					case UPPER:
+						beta = Math.min(beta, score);
+						break;
+				}
+				if (beta <= alpha)
+					return score;
+			}
+			if (EndgameSolver.onlyChains(gameBoard)) {
+				final int solved = ENDGAME.get().solve(gameBoard, endgameValues);
+				if (solved != EndgameSolver.UNSOLVED) { // the rest of the game is known to any depth
+					counters.endgameSolves.increment();
+					final int score = getScoreCompleted(gameBoard) + (max ? solved : -solved);
+					store(gameBoard, score, SOLVED_DEPTH, EXACT, -1);
+					return score;
+				}
+			}
+			final long result = board != null // best move of a shallower search first
+					? getScoreSearchInPlace(gameBoard, depth, max, alpha, beta, firstMove)
+					: getScoreSearch(gameBoard, depth, max, alpha, beta, firstMove, split);
+			if (board == null)
+				nodeCache.searched(gameBoard, depth);
+			final int score = (int) result;
+			final int move = (int) (result >> 32);
+			final int bound = move == -1 ? EXACT : score <= alpha ? UPPER : score >= beta ? LOWER : EXACT;
+			store(gameBoard, score, remaining, bound, move == -1 ? -1 : gameBoard.toCanonicalEdge(move));
+			return score;
+		}
+
+		private void store(final GameBoard gameBoard, final int score, final int remaining, final int bound, final int canonicalMove) {
+			table.store(gameBoard.getCanonicalKey() ^ tableSalt, score, remaining, bound, canonicalMove);
+			counters.tableStores.increment();
+			if (persisting && remaining >= PERSIST_DEPTH)
+				store.store(gameBoard.getCanonicalKey(), fingerprint, score, remaining, bound, canonicalMove);
+		}
+
+		/**
+		 * @return score of a game based on depth searching the board's children, and the edge of the best child
+		 */
+		private long getScoreSearch(final GameBoard gameBoard, final int depth, boolean max, int alpha, int beta, int firstMove,
+									final SplitPoint split) {
+			final int nextDepth = depth + 1;
+			int best = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+			int bestMove = -1;
+			int searched = 0;
+			final int player = max ? getPlayerID() : getOtherPlayerID();
+			final Iterator<GameBoard> expandIter =
+					gameBoard.expandIter(player, firstMove, (board, edge) -> rankMove(board, edge, depth, player));
+			int[] representatives = null; // most boards cut off on the first child, they needn't know which moves are alike
+			int first = -1;
+			while (expandIter.hasNext()) {
+				if (searched == 1 && representatives == null)
+					representatives = findRepresentatives(gameBoard);
+				if (pool != null && bestMove != -1 && layers - depth >= SPLIT_DEPTH) // young brothers wait for the eldest
+					return searchYoungerChildren(gameBoard, expandIter, depth, max, alpha, beta, best, bestMove, player, split,
+												 representatives);
+				final GameBoard next = expandIter.next();
+				if (searched == 0)
+					first = next.getMove();
+				else if (isMerged(representatives, first, next.getMove())) {
+					counters.equivalentMoves.increment();
+					continue;
+				}
+				int score = getScoreScout(next, nextDepth, max, alpha, beta, searched == 0, split);
+				searched++;
+				if (max ? score > best : score < best) {
+					best = score;
+					bestMove = next.getMove();
+				}
+				if (max)
+					alpha = Math.max(alpha, score);
+				else
+					beta = Math.min(beta, score);
+				if (beta <= alpha) {
+					counters.betaCutoffs.increment();
+					if (searched == 1)
+						counters.firstChildCutoffs.increment();
+					recordCutoff(gameBoard, next.getMove(), depth, player);
+					break;
+				}
+			}
+			if (bestMove == -1) { // no children; fully played out
+				counters.leafEvaluations.increment();
+				return searchResult(getScoreCompleted(gameBoard), -1);
+			}
+			return searchResult(best, bestMove);
+		}
+
+		/**
+		 * {@link #getScoreSearch} drawing each child's edge on the board and taking it back, in the same order,
+		 * picking the highest ranked edge left each time since a cutoff usually comes before they're all needed;
+		 * an iteration that runs out of budget leaves the board as it was, the next root move overwrites it
+		 */
+		private long getScoreSearchInPlace(final GameBoard gameBoard, final int depth, boolean max, int alpha, int beta,
+										   final int firstMove) {
+			final int[] edges = moves[depth];
+			final int[] rank = ranks[depth];
+			final int player = max ? getPlayerID() : getOtherPlayerID();
+			int count = 0;
+			for (int edge = 0; edge < edges.length; edge++) {
+				if (!gameBoard.isOpen(edge))
+					continue;
+				edges[count] = edge;
+				rank[count++] = edge == firstMove ? Integer.MAX_VALUE : rankMove(gameBoard, edge, depth, player);
+			}
+			int best = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+			int bestMove = -1;
+			int left = count; // to search, counting the ones searched
+			for (int searched = 0; searched < left; ) {
+				int next = 0;
+				for (int i = 1; i < count; i++)
+					if (rank[i] > rank[next])
+						next = i;
+				rank[next] = Integer.MIN_VALUE; // searched
+				final int edge = edges[next];
+				gameBoard.makeMove(edge, player);
+				final int score = getScoreScout(gameBoard, depth + 1, max, alpha, beta, searched == 0, null);
+				gameBoard.unmakeMove();
+				searched++;
+				if (max ? score > best : score < best) {
+					best = score;
+					bestMove = edge;
+				}
+				if (max)
+					alpha = Math.max(alpha, score);
+				else
+					beta = Math.min(beta, score);
+				if (beta <= alpha) {
+					counters.betaCutoffs.increment();
+					if (searched == 1)
+						counters.firstChildCutoffs.increment();
+					recordCutoff(gameBoard, edge, depth, player);
+					break;
+				}
+				if (searched == 1 && representatives != null)
+					left -= mergeMoves(gameBoard, depth, edge, count);
+			}
+			if (bestMove == -1) { // no children; fully played out
+				counters.leafEvaluations.increment();
+				return searchResult(getScoreCompleted(gameBoard), -1);
+			}
+			return searchResult(best, bestMove);
+		}
+
+		/**
+		 * leave out the moves of the board in place that lead to the same game as another, once the first didn't cut off
+		 * @return how many of them were left out
+		 */
+		private int mergeMoves(final GameBoard gameBoard, final int depth, final int first, final int count) {
+			final int[] equivalent = representatives[depth];
+			EQUIVALENCE.get().find(gameBoard, equivalent);
+			int merged = 0;
+			for (int i = 0; i < count; i++) {
+				if (ranks[depth][i] != Integer.MIN_VALUE && isMerged(equivalent, first, moves[depth][i])) {
+					ranks[depth][i] = Integer.MIN_VALUE;
+					merged++;
+				}
+			}
+			counters.equivalentMoves.add(merged);
+			return merged;
+		}
+
+		/**
+		 * fork a search for each remaining child and wait for all of them, the first cutoff stops the rest
+		 */
+		private long searchYoungerChildren(final GameBoard gameBoard, final Iterator<GameBoard> expandIter, final int depth,
+										   final boolean max, final int alpha, final int beta, final int best, final int bestMove,
+										   final int player, final SplitPoint parent, final int[] representatives) {
+			final SplitPoint split = new SplitPoint(parent, max, alpha, beta, best, bestMove);
+			final List<ForkJoinTask<?>> children = new ArrayList<>();
+			while (expandIter.hasNext() && !split.isCancelled()) {
+				final GameBoard next = expandIter.next();
+				if (isMerged(representatives, bestMove, next.getMove())) { // the eldest is the best so far
+					counters.equivalentMoves.increment();
+					continue;
+				}
+				final Search forked = new Search(this);
+				children.add(ForkJoinTask.adapt(() -> forked.searchChild(next, depth + 1, split)).fork());
+			}
+			for (int i = children.size() - 1; i >= 0; i--) // newest first, they are likely still in this thread's queue
+				children.get(i).join();
+			if (run.abandoned || interruptible && run.outOfBudget)
+				throw TIMEOUT;
+			if (parent != null && parent.isCancelled())
+				throw CANCELLED;
+			if (split.cutoffMove != -1) {
+				counters.betaCutoffs.increment();
+				recordCutoff(gameBoard, split.cutoffMove, depth, player);
+			}
+			return split.result();
+		}
+
+		private void searchChild(final GameBoard child, final int depth, final SplitPoint split) {
+			if (split.isCancelled())
+				return;
+			try {
+				split.update(getScore(child, depth, !split.max, split.alpha(), split.beta(), split), child.getMove());
+			} catch (final SearchTimeout abandoned) {
+				// the board waiting on it checks the budget and the split points above itself
+			}
+		}
+
+	}
+
+	private static int[][] copy(final int[][] array) {
+		final int[][] copy = new int[array.length][];
+		for (int i = 0; i < array.length; i++)
+			copy[i] = array[i].clone();
+		return copy;
+	}
+
+	/**
+	 * stable insertion sort from highest score to lowest, root moves are few
+	 */
+	private static void sortByScore(final List<GameBoard> moves, final int[] scores) {
+		for (int i = 1; i < scores.length; i++) {
+			final int score = scores[i];
+			final GameBoard move = moves.get(i);
+			int j = i - 1;
+			for (; j >= 0 && scores[j] < score; j--) {
+				scores[j + 1] = scores[j];
+				moves.set(j + 1, moves.get(j));
+			}
+			scores[j + 1] = score;
+			moves.set(j + 1, move);
+		}
+	}
+
+	private void checkBudget(final Run run) {
+		if (timed && System.nanoTime() > deadline || maxNodes > 0 && counters.nodes() + counters.quiescenceNodes.sum() > maxNodes
+			|| run.stopped.getAsBoolean())
+			run.outOfBudget = true;
+	}
+
+	/**
+	 * what stops one search early; every search has its own, so stopping or abandoning one can't reach the next
+	 */
+	private static final class Run {
+
+		private static final BooleanSupplier NEVER = () -> false;
+
+		private final BooleanSupplier stopped; // checked by the watchdog along with the budget
+		private volatile boolean outOfBudget; // set by the watchdog, or by stop()
+		private volatile boolean abandoned; // its asynchronous search was cancelled, stop even before the first iteration finishes
+
+		Run(final BooleanSupplier stopped) {
+			this.stopped = stopped;
+		}
+
+	}
+
+	/**
+	 * the future of an asynchronous search, with what stops it from before it starts
+	 */
+	private static final class AsyncSearch extends CompletableFuture<SearchResult> {
+
+		private final Run run = new Run(Run.NEVER);
+
+	}
+
+	private static final class SearchTimeout extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		SearchTimeout() {
+			super(null, null, false, false);
+		}
+
+	}
+
+	/**
+	 * the younger children of a board being searched in parallel, sharing the board's alpha and beta
+	 */
+	private static final class SplitPoint {
+
+		private final SplitPoint parent;
+		private final boolean max;
+		private int alpha;
+		private int beta;
+		private int best;
+		private int bestMove;
+		private int cutoffMove = -1;
+		private volatile boolean cancelled; // a child caused a cutoff, so the others can stop
+
+		SplitPoint(final SplitPoint parent, final boolean max, final int alpha, final int beta, final int best, final int bestMove) {
+			this.parent = parent;
+			this.max = max;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.best = best;
+			this.bestMove = bestMove;
+		}
+
+		synchronized int alpha() {
+			return alpha;
+		}
+
+		synchronized int beta() {
+			return beta;
+		}
+
+		synchronized void update(final int score, final int move) {
+			if (max ? score > best : score < best) {
+				best = score;
+				bestMove = move;
+			}
+			if (max)
 				alpha = Math.max(alpha, score);
-			} else {
-				best = Math.min(best, score);
+			else
 				beta = Math.min(beta, score);
+			if (beta <= alpha && !cancelled) {
+				cutoffMove = move;
+				cancelled = true;
 			}
-			if (beta <= alpha)
-				break;
 		}
-		if (best == (max ? Integer.MIN_VALUE : Integer.MAX_VALUE))
-			return getScoreCompleted(gameBoard);
-		return best; // no children; fully played out
+
+		synchronized long result() {
+			return searchResult(best, bestMove);
+		}
+
+		/**
+		 * @return if this or any split point above it was cut off
+		 */
+		boolean isCancelled() {
+			for (SplitPoint split = this; split != null; split = split.parent)
+				if (split.cancelled)
+					return true;
+			return false;
+		}
+
+	}
+
+	private static long searchResult(final int score, final int move) {
+		return (long) move << 32 | score & 0xFFFFFFFFL;
 	}
 
 	/**
-	 * @return score of a game by depth search but with reusing already checked boards with a memoization table
+	 * @return if this player is behind by more than the points left to capture, so giving up costs nothing,
+	 * while being behind for now can be part of a plan the evaluation sees
 	 */
-	private int getScoreTable(GameBoard gameBoard, int depth, boolean max, int alpha, int beta) {
-		final HashMap<GameBoard, Integer> levelTable =
-				stateStorageTable.computeIfAbsent(gameBoard.getMoveAmount(), k -> new HashMap<>());
-		Integer score = levelTable.get(gameBoard);
-		if (score == null) {
-			score = getScoreSearch(gameBoard, depth, max, alpha, beta);
-			levelTable.put(gameBoard, score);
-		}
-		return score;
+	private boolean isLost(final GameBoard gameBoard) {
+		final BoardLayout layout = gameBoard.getLayout();
+		int left = 0;
+		for (int tile = 0; tile < layout.tileCount; tile++)
+			if (gameBoard.getOwner(tile) == 0)
+				left += layout.tileValue(tile);
+		return getScoreCompleted(gameBoard) + left < 0;
+	}
+
+	/**
+	 * @param player to move
+	 * @return the evaluation of a board from this player's side
+	 */
+	private int evaluate(final GameBoard gameBoard, final int player) {
+		final int score = evaluation.evaluate(gameBoard, player);
+		return getPlayerID() == 2 ? score : -score;
 	}
 
 	/**
-	 * @return get the score of a complete game, the difference of the points earned by the players
+	 * @return get the score of a complete game, the difference of the points earned by the players,
+	 * from this player's side so it can play either one
 	 */
 	private int getScoreCompleted(GameBoard gameBoard) {
 		// return gameBoard.getPlayerScore(getPlayerID()) - gameBoard.getPlayerScore(getOtherPlayerID());
-		return gameBoard.getScore();
+		return getPlayerID() == 2 ? gameBoard.getScore() : -gameBoard.getScore();
 	}
 
 }
@@ -0,0 +1,218 @@
+package com.wordpress.brancodes.game;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monte Carlo tree search: plays random games out from the board, growing a tree toward the moves that won the most
+ * while still trying the others now and then (UCT), for boards too big for minimax to search deep enough
+ * <p>
+ * with more than one thread every thread grows its own tree from the board and their root moves' visits are added up.
+ * a move interrupted while the workers play out games still plays the most visited move so far, with the interrupt
+ * status set again
+ */
+public class MonteCarloPlayer extends Player implements AutoCloseable {
+
+	public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+
+	private final long moveNanos; // time for each move, 0 for no limit
+	private final long maxPlayouts; // random games for each move over all threads, 0 for no limit
+	private final int threads;
+	private final double exploration; // how much less visited moves are favored over ones that won more
+	private final ExecutorService workers; // null to search on the calling thread
+	private long playouts; // played during the last move
+
+	public MonteCarloPlayer(final int playerID, final Duration moveTime) {
+		this(playerID, moveTime, 0, 1, DEFAULT_EXPLORATION);
+	}
+
+	public MonteCarloPlayer(final int playerID, final long playouts) {
+		this(playerID, Duration.ZERO, playouts, 1, DEFAULT_EXPLORATION);
+	}
+
+	/**
+	 * @param moveTime stop playing out games after this long, zero for no limit
+	 * @param playouts also stop after this many games over all threads, 0 for no limit
+	 */
+	public MonteCarloPlayer(final int playerID, final Duration moveTime, final long playouts, final int threads,
+							final double exploration) {
+		super(playerID);
+		if (moveTime.isZero() && playouts == 0)
+			throw new IllegalArgumentException("a move needs a time or playout budget");
+		moveNanos = moveTime.toNanos();
+		maxPlayouts = playouts;
+		this.threads = threads;
+		this.exploration = exploration;
+		workers = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+			final Thread worker = new Thread(runnable, "monte-carlo-worker");
+			worker.setDaemon(true);
+			return worker;
+		}) : null;
+	}
+
+	@Override
+	public void move(final GameBoard gameBoard) {
+		if (workers != null && workers.isShutdown())
+			throw new IllegalStateException("the player is closed");
+		final long deadline = System.nanoTime() + moveNanos;
+		final AtomicBoolean stop = new AtomicBoolean(); // the workers play no more games, the move is made from theirs so far
+		boolean interrupted = false;
+		final List<Future<Node>> searches = new ArrayList<>();
+		final List<Node> roots = new ArrayList<>();
+		for (int thread = 0; thread < threads; thread++) {
+			final long budget = maxPlayouts == 0 ? 0 : Math.max(1, (maxPlayouts + thread) / threads); // adds up to the total
+			final GameBoard root = gameBoard.clone(); // expanding a board isn't thread safe
+			if (workers == null)
+				roots.add(search(root, deadline, budget, stop));
+			else
+				searches.add(workers.submit(() -> search(root, deadline, budget, stop)));
+		}
+		for (final Future<Node> search : searches) {
+			while (true) {
+				try {
+					roots.add(search.get());
+					break;
+				} catch (final InterruptedException e) {
+					interrupted = true;
+					stop.set(true);
+				} catch (final ExecutionException e) {
+					stop.set(true);
+					throw new IllegalStateException("playouts failed", e.getCause());
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		final long[] visits = new long[gameBoard.getMaxDepth()];
+		GameBoard best = null;
+		playouts = 0;
+		for (final Node root : roots) {
+			playouts += root.visits;
+			for (final Node child : root.children) {
+				final int edge = child.board.getMove();
+				visits[edge] += child.visits;
+				if (best == null || visits[edge] > visits[best.getMove()])
+					best = child.board;
+			}
+		}
+		gameBoard.move(best);
+	}
+
+	/**
+	 * let go of the worker threads, a player made with more than one thread can't move afterwards
+	 */
+	@Override
+	public void close() {
+		if (workers != null)
+			workers.shutdown();
+	}
+
+	/**
+	 * @return random games played out during the last move, by every thread
+	 */
+	public long getPlayoutCount() {
+		return playouts;
+	}
+
+	/**
+	 * grow one tree until the time or this thread's share of the playouts runs out, or the move is interrupted,
+	 * always at least one playout so the root has a move
+	 * @param stop set when the thread waiting for the move is interrupted, a search on that thread itself
+	 * checks its interrupt status instead
+	 */
+	private Node search(final GameBoard gameBoard, final long deadline, final long budget, final AtomicBoolean stop) {
+		final Node root = new Node(null, gameBoard, getOtherPlayerID());
+		final Random random = ThreadLocalRandom.current();
+		for (long playout = 0; playout == 0 || (budget == 0 || playout < budget) && (moveNanos == 0 || System.nanoTime() < deadline)
+											 && !stop.get() && !Thread.currentThread().isInterrupted(); playout++) {
+			Node node = root;
+			while (!node.untried.hasNext() && !node.children.isEmpty())
+				node = node.select(exploration);
+			if (node.untried.hasNext())
+				node = node.expand();
+			final int winner = playout(node.board, node.player ^ 3, random);
+			for (; node != null; node = node.parent)
+				node.update(winner);
+		}
+		return root;
+	}
+
+	/**
+	 * play random moves on a copy of the board until it's full
+	 * @param player to move first
+	 * @return the player with more points or 0 for a draw
+	 */
+	private static int playout(final GameBoard gameBoard, int player, final Random random) {
+		final GameBoard game = gameBoard.clone();
+		while (!game.complete()) {
+			game.moveRandom(player, random);
+			player ^= 3;
+		}
+		final int score = game.getScore(); // player 2's points minus player 1's
+		return score > 0 ? 2 : score < 0 ? 1 : 0;
+	}
+
+	/**
+	 * a board in one thread's tree, with how often the games played through it were won by the player that moved to it
+	 */
+	private static final class Node {
+
+		private final Node parent;
+		private final GameBoard board;
+		private final int player; // the player whose move made this board
+		private final Iterator<GameBoard> untried; // children without a node yet, captures first
+		private final List<Node> children = new ArrayList<>();
+		private int visits;
+		private double wins; // draws count half
+
+		Node(final Node parent, final GameBoard board, final int player) {
+			this.parent = parent;
+			this.board = board;
+			this.player = player;
+			untried = board.complete() ? Collections.emptyIterator() : board.expandIter(player ^ 3, -1, MoveOrdering.SAFE_FIRST);
+		}
+
+		Node expand() {
+			final Node child = new Node(this, untried.next(), player ^ 3);
+			children.add(child);
+			return child;
+		}
+
+		/**
+		 * @return the child with the highest upper confidence bound of its win rate
+		 */
+		Node select(final double exploration) {
+			final double logVisits = Math.log(visits);
+			Node best = null;
+			double bestBound = Double.NEGATIVE_INFINITY;
+			for (final Node child : children) {
+				final double bound = child.wins / child.visits + exploration * Math.sqrt(logVisits / child.visits);
+				if (bound > bestBound) {
+					bestBound = bound;
+					best = child;
+				}
+			}
+			return best;
+		}
+
+		void update(final int winner) {
+			visits++;
+			if (winner == player)
+				wins++;
+			else if (winner == 0)
+				wins += 0.5;
+		}
+
+	}
+
+}
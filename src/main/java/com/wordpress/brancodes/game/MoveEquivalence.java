@@ -0,0 +1,215 @@
+package com.wordpress.brancodes.game;
+
+import java.util.Arrays;
+
+/**
+ * groups the open edges of a board whose moves lead to the same game, so a search only needs to try one of each group
+ * <p>
+ * a move only changes the area of empty tiles it is drawn in, and what an area goes on to do depends only on which of
+ * its tiles are joined, each tile's value and how many of its open edges lead off the board, and the row-major order
+ * of its tiles, which decides where a captured part gets its filler edges. so two moves are equivalent when they are
+ * <ul>
+ * <li>spare edges inside captured areas, which only pass the turn</li>
+ * <li>open edges leading off the board from the same tile</li>
+ * <li>the same edge of two areas that are alike in all of the above, since either leaves the same areas, swapped</li>
+ * </ul>
+ * the boards they lead to only differ by which edges and tiles are where, which no score, capture or evaluation looks at,
+ * so the best of the representatives is worth exactly as much as the best of all the moves. edges of one chain, or of
+ * chains that are only the same length and worth the same, aren't merged: the order of the tile values along a chain,
+ * and where its fillers go, change what the players get out of it
+ */
+final class MoveEquivalence {
+
+	private int[] tiles = new int[0]; // the empty tiles area after area, each area in row-major order
+	private int[] flood; // tiles of the area being flood filled, in the order they're reached
+	private int[] areaStart; // <area, index of its first tile in tiles>, one more for the end of the last
+	private int[] areaOf; // <tile, its area + 1>, 0 for captured
+	private int[] index; // <tile, index among its area's tiles>
+	private int[] neighbors; // <tile, side, the tile an open edge joins it to, -1 off the board, -2 drawn>
+	private int[] exits; // <tile, open edges leading off the board>
+	private int[] firstExit; // <tile, the first of those>
+	private int[] hashes; // <area, hash of its shape>
+	private int[] representativeAreas; // <area, first area alike>
+
+	/**
+	 * @param representatives filled in with, for each open edge, the first equivalent edge, itself if it is one;
+	 * closed edges are left as they were
+	 * @return how many open edges aren't representatives
+	 */
+	int find(final GameBoard gameBoard, final int[] representatives) {
+		final BoardLayout layout = gameBoard.getLayout();
+		if (tiles.length < layout.tileCount) {
+			tiles = new int[layout.tileCount];
+			flood = new int[layout.tileCount];
+			areaStart = new int[layout.tileCount + 1];
+			areaOf = new int[layout.tileCount];
+			index = new int[layout.tileCount];
+			neighbors = new int[4 * layout.tileCount];
+			exits = new int[layout.tileCount];
+			firstExit = new int[layout.tileCount];
+			hashes = new int[layout.tileCount];
+			representativeAreas = new int[layout.tileCount];
+		}
+		final int areas = findAreas(gameBoard);
+		int redundant = 0;
+		int spare = -1;
+		for (int edge = 0; edge < layout.edgeCount; edge++) {
+			if (!gameBoard.isOpen(edge))
+				continue;
+			representatives[edge] = edge;
+			if (isEmpty(layout.edgeTiles[2 * edge]) || isEmpty(layout.edgeTiles[2 * edge + 1]))
+				continue;
+			if (spare == -1)
+				spare = edge;
+			else {
+				representatives[edge] = spare;
+				redundant++;
+			}
+		}
+		for (int area = 0; area < areas; area++) {
+			int alike = area;
+			for (int other = 0; other < area && alike == area; other++)
+				if (representativeAreas[other] == other && hashes[other] == hashes[area] && isAlike(layout, other, area))
+					alike = other;
+			representativeAreas[area] = alike;
+			redundant += mapEdges(layout, area, alike, representatives);
+		}
+		return redundant;
+	}
+
+	private boolean isEmpty(final int tile) {
+		return tile != -1 && areaOf[tile] != 0;
+	}
+
+	/**
+	 * flood fill the empty tiles into areas, then lay the areas out one after another, row-major order by row-major order
+	 * @return how many areas there are
+	 */
+	private int findAreas(final GameBoard gameBoard) {
+		final BoardLayout layout = gameBoard.getLayout();
+		Arrays.fill(areaOf, 0, layout.tileCount, 0);
+		int areas = 0;
+		for (int start = 0; start < layout.tileCount; start++) {
+			if (areaOf[start] != 0 || gameBoard.getOwner(start) != 0)
+				continue;
+			int size = 0;
+			areaOf[start] = areas + 1;
+			flood[size++] = start;
+			for (int next = 0; next < size; next++) {
+				final int tile = flood[next];
+				exits[tile] = 0;
+				firstExit[tile] = -1;
+				for (int side = 0; side < 4; side++) {
+					final int edge = layout.edgeAt(tile, side);
+					final int neighbor = !gameBoard.isOpen(edge) ? -2
+							: layout.edgeTiles[2 * edge] == tile ? layout.edgeTiles[2 * edge + 1] : layout.edgeTiles[2 * edge];
+					neighbors[4 * tile + side] = neighbor;
+					if (neighbor == -1 && exits[tile]++ == 0)
+						firstExit[tile] = edge;
+					else if (neighbor >= 0 && areaOf[neighbor] == 0) {
+						areaOf[neighbor] = areas + 1;
+						flood[size++] = neighbor;
+					}
+				}
+			}
+			areaStart[areas + 1] = size; // for now
+			areas++;
+		}
+		areaStart[0] = 0;
+		for (int area = 1; area <= areas; area++)
+			areaStart[area] += areaStart[area - 1];
+		final int[] next = flood; // done with it, <area, how many of its tiles are laid out>
+		Arrays.fill(next, 0, areas, 0);
+		for (int tile = 0; tile < layout.tileCount; tile++) {
+			if (areaOf[tile] == 0)
+				continue;
+			final int area = areaOf[tile] - 1;
+			index[tile] = next[area]++;
+			tiles[areaStart[area] + index[tile]] = tile;
+		}
+		for (int area = 0; area < areas; area++)
+			hashes[area] = hash(layout, area);
+		return areas;
+	}
+
+	private int hash(final BoardLayout layout, final int area) {
+		int hash = areaStart[area + 1] - areaStart[area];
+		for (int i = areaStart[area]; i < areaStart[area + 1]; i++) {
+			final int tile = tiles[i];
+			int links = 0;
+			for (int side = 0; side < 4; side++)
+				if (neighbors[4 * tile + side] >= 0)
+					links += index[neighbors[4 * tile + side]] + 1;
+			hash = 31 * (31 * (31 * hash + layout.tileValue(tile)) + exits[tile]) + links;
+		}
+		return hash;
+	}
+
+	/**
+	 * @return if the areas' tiles, in row-major order, have the same values and exits and are joined the same way
+	 */
+	private boolean isAlike(final BoardLayout layout, final int area, final int other) {
+		final int size = areaStart[area + 1] - areaStart[area];
+		if (areaStart[other + 1] - areaStart[other] != size)
+			return false;
+		for (int i = 0; i < size; i++) {
+			final int tile = tiles[areaStart[area] + i];
+			final int otherTile = tiles[areaStart[other] + i];
+			if (layout.tileValue(tile) != layout.tileValue(otherTile) || exits[tile] != exits[otherTile]
+				|| links(tile) != links(otherTile))
+				return false;
+			for (int side = 0; side < 4; side++) {
+				final int neighbor = neighbors[4 * otherTile + side];
+				if (neighbor >= 0 && linkTo(tile, tiles[areaStart[area] + index[neighbor]]) == -1)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * point each open edge of an area at the same edge of the area alike, or at the first exit of the same tile
+	 * @return how many of them point at another edge
+	 */
+	private int mapEdges(final BoardLayout layout, final int area, final int alike, final int[] representatives) {
+		int redundant = 0;
+		for (int i = 0; i < areaStart[area + 1] - areaStart[area]; i++) {
+			final int tile = tiles[areaStart[area] + i];
+			final int alikeTile = tiles[areaStart[alike] + i];
+			for (int side = 0; side < 4; side++) {
+				final int neighbor = neighbors[4 * tile + side];
+				if (neighbor == -2 || neighbor >= 0 && (alike == area || tile > neighbor)) // each link once
+					continue;
+				final int edge = layout.edgeAt(tile, side);
+				final int representative = neighbor == -1 ? firstExit[alikeTile]
+						: layout.edgeAt(alikeTile, linkTo(alikeTile, tiles[areaStart[alike] + index[neighbor]]));
+				representatives[edge] = representative;
+				if (representative != edge)
+					redundant++;
+			}
+		}
+		return redundant;
+	}
+
+	/**
+	 * @return how many tiles the tile is joined to
+	 */
+	private int links(final int tile) {
+		int links = 0;
+		for (int side = 0; side < 4; side++)
+			if (neighbors[4 * tile + side] >= 0)
+				links++;
+		return links;
+	}
+
+	/**
+	 * @return the side of the tile with an open edge to the other, -1 if there is none
+	 */
+	private int linkTo(final int tile, final int neighbor) {
+		for (int side = 0; side < 4; side++)
+			if (neighbors[4 * tile + side] == neighbor)
+				return side;
+		return -1;
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.wordpress.brancodes.game;
+
+/**
+ * decides which children {@link GameBoard#expandIter(int, int, MoveOrdering)} gives first,
+ * good moves first means more alpha beta cutoffs
+ */
+@FunctionalInterface
+public interface MoveOrdering {
+
+	int CAPTURE = 1 << 28;
+
+	/**
+	 * box completing moves first and moves that draw a tile's third side, letting the opponent take it, last
+	 */
+	MoveOrdering SAFE_FIRST = (gameBoard, edge) -> switch (gameBoard.getMostDrawnSides(edge)) {
+		case 3 -> CAPTURE;
+		case 2 -> -CAPTURE;
+		default -> 0;
+	};
+
+	/**
+	 * @param edge an open edge of the board
+	 * @return higher for moves that should be searched sooner, ties keep the top left to bottom right order
+	 */
+	int rank(GameBoard gameBoard, int edge);
+
+}
@@ -0,0 +1,108 @@
+package com.wordpress.brancodes.game;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * decides which boards keep their expanded children once their search is done, under a memory cap
+ * <p>
+ * kept children save expanding the same boards again in the next iteration or the next move, which matters most
+ * near the root where boards are searched again and again. so only boards in the first few plies keep them, first
+ * come first kept until the cap is reached, and every other board lets its children go as soon as it is searched.
+ * boards can't be evicted later, another thread might be going through their children, so instead the kept tree is
+ * recounted at the start of every move and anything it no longer reaches is dropped
+ * <p>
+ * the heap used by the tree is then the cap plus the boards on the paths being searched, however deep they go
+ */
+final class NodeCache {
+
+	static final long DEFAULT_BYTES = 64L << 20;
+	private static final int CACHED_PLIES = 4; // boards deeper than this never keep their children
+	private static final int BOARD_BYTES = 160; // rough size of a board and its place in its parent's lists, without its bits
+
+	private final long bytes;
+	private final AtomicLong cached = new AtomicLong(); // boards kept as the children of other boards
+	private long capacity;
+
+	NodeCache(final long bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * start a move, keeping the part of the tree still reachable from its root
+	 */
+	void reset(final GameBoard root) {
+		capacity = bytes / (BOARD_BYTES + Long.BYTES * root.getLayout().wordCount);
+		cached.set(recount(root));
+	}
+
+	/**
+	 * @return boards kept below this one, after letting go of the children of boards that were never kept,
+	 * the search ran out of time before it was done with them
+	 */
+	private static long recount(final GameBoard gameBoard) {
+		if (gameBoard.getRetainedChildren() == 0) {
+			gameBoard.releaseChildren();
+			return 0;
+		}
+		final List<GameBoard> children = gameBoard.getExpandedChildren();
+		gameBoard.retain(children.size());
+		long count = children.size();
+		for (final GameBoard child : children)
+			count += recount(child);
+		return count;
+	}
+
+	/**
+	 * a board's search is done, keep its children or let them go. a kept board can have more children than before
+	 * if its search was cut off early the last time, those have to fit as well
+	 * @param depth plies between the board and the root
+	 */
+	void searched(final GameBoard gameBoard, final int depth) {
+		final int children = gameBoard.getExpandedChildren().size();
+		final int kept = gameBoard.getRetainedChildren();
+		if (children == kept)
+			return;
+		if (depth < CACHED_PLIES && reserve(children - kept))
+			gameBoard.retain(children);
+		else
+			cached.addAndGet(-release(gameBoard));
+	}
+
+	/**
+	 * @return how many kept boards were let go, below and including the board's children
+	 */
+	private static long release(final GameBoard gameBoard) {
+		long released = gameBoard.getRetainedChildren();
+		for (final GameBoard child : gameBoard.getExpandedChildren())
+			if (child.getRetainedChildren() > 0) // kept even if this board wasn't
+				released += release(child);
+		gameBoard.releaseChildren();
+		return released;
+	}
+
+	private boolean reserve(final int children) {
+		while (true) {
+			final long count = cached.get();
+			if (count + children > capacity)
+				return false;
+			if (cached.compareAndSet(count, count + children))
+				return true;
+		}
+	}
+
+	/**
+	 * @return boards kept as children of other boards
+	 */
+	long occupancy() {
+		return cached.get();
+	}
+
+	/**
+	 * @return most boards it will keep for the board size of the current move
+	 */
+	long capacity() {
+		return capacity;
+	}
+
+}
@@ -0,0 +1,310 @@
+package com.wordpress.brancodes.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * every position reachable from a board solved exactly: how many points more than the other player the player to move
+ * gets for the rest of the game, and the edge that gets them, each found with one hash probe
+ * <p>
+ * a position is just its drawn edges, since an enclosed area is captured as soon as it closes and who owns it doesn't
+ * change what is left to play for. solving goes one layer of positions at a time, a layer being every position after
+ * some number of moves: the layers are enumerated forward from the board, then valued backward from the last, where
+ * the board is full, to the first. each layer is split among the threads and its list of positions is dropped once it
+ * is valued, leaving only the table. a position reached after different numbers of moves is valued once
+ */
+public final class PerfectPlayTable {
+
+	private static final long EMPTY = -1; // no solvable board has all 64 edges drawn
+	private static final byte UNSOLVED = -2, NO_MOVE = -1; // in moves
+	private static final int CHUNK = 1 << 12; // positions a thread takes at a time
+	private static final int BYTES_PER_POSITION = 3 * 8 + 2 * 2; // in its layer and the sets finding it, and its slots
+
+	private final BoardLayout layout;
+	private final long[] keys; // drawn edges, EMPTY for a free slot
+	private final byte[] values;
+	private final byte[] moves; // best edge, NO_MOVE once every tile is captured
+	private final int[] layerSizes;
+	private final int shift; // 64 - log2 of the slots
+	private int size;
+
+	private PerfectPlayTable(final BoardLayout layout, final int[] layerSizes, final long positions) {
+		this.layout = layout;
+		this.layerSizes = layerSizes;
+		final int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, 2 * positions - 1)); // at most half full
+		if (bits > 30)
+			throw new IllegalStateException(positions + " positions are too many to solve");
+		shift = 64 - bits;
+		keys = new long[1 << bits];
+		Arrays.fill(keys, EMPTY);
+		values = new byte[1 << bits];
+		moves = new byte[1 << bits];
+		Arrays.fill(moves, UNSOLVED);
+	}
+
+	/**
+	 * solve every position reachable from the board
+	 * @throws IllegalArgumentException if the board has 64 edges or more, or more points than a byte holds
+	 * @throws IllegalStateException if the positions wouldn't fit in memory
+	 */
+	public static PerfectPlayTable solve(final GameBoard gameBoard, final int threads) throws InterruptedException {
+		final BoardLayout layout = gameBoard.getLayout();
+		if (layout.edgeCount >= 64)
+			throw new IllegalArgumentException("only boards with fewer than 64 edges can be solved, not " + layout.edgeCount);
+		int points = 0;
+		for (int tile = 0; tile < layout.tileCount; tile++)
+			points += layout.tileValue(tile);
+		if (points > Byte.MAX_VALUE)
+			throw new IllegalArgumentException(points + " points are more than the table holds");
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			final Thread worker = new Thread(runnable, "perfect-play-solver");
+			worker.setDaemon(true);
+			return worker;
+		});
+		try {
+			final List<long[]> layers = new ArrayList<>();
+			layers.add(new long[] { gameBoard.getEdges() });
+			long positions = 1;
+			while (true) {
+				final int moves = layers.size() - 1;
+				final long[] last = layers.get(moves);
+				// as many as there are ways to draw one more of the open edges, fewer with the filler edges drawn too
+				final long estimate = (long) last.length * (gameBoard.getOpenEdgeAmount() - moves) / (moves + 1);
+				if ((positions + estimate) * BYTES_PER_POSITION > Runtime.getRuntime().maxMemory())
+					throw new IllegalStateException("about " + (positions + estimate) + " positions, too many to solve in memory");
+				final long[] next = enumerate(gameBoard, last, executor, threads);
+				if (next.length == 0)
+					break;
+				layers.add(next);
+				positions += next.length;
+			}
+			final PerfectPlayTable table = new PerfectPlayTable(layout, layers.stream().mapToInt(layer -> layer.length).toArray(), positions);
+			for (final long[] layer : layers)
+				for (final long edges : layer)
+					table.insert(edges);
+			for (int layer = layers.size() - 1; layer >= 0; layer--) {
+				table.value(gameBoard, layers.get(layer), executor, threads);
+				layers.set(layer, null);
+			}
+			return table;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return how many points more than the other player the player to move gets for the rest of the game,
+	 * both playing perfectly
+	 * @throws IllegalArgumentException if the position isn't in the table
+	 */
+	public int value(final GameBoard gameBoard) {
+		return values[find(gameBoard)];
+	}
+
+	/**
+	 * @return the edge getting the most points for the player to move, or -1 once every tile is captured
+	 * @throws IllegalArgumentException if the position isn't in the table
+	 */
+	public int bestMove(final GameBoard gameBoard) {
+		return moves[find(gameBoard)];
+	}
+
+	/**
+	 * @return different positions in the table
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return positions after each number of moves, counting one reached after different numbers in each of them
+	 */
+	public int[] getLayerSizes() {
+		return layerSizes.clone();
+	}
+
+	/**
+	 * @return memory held by the table
+	 */
+	public long getBytes() {
+		return (long) keys.length * (Long.BYTES + 2);
+	}
+
+	private int find(final GameBoard gameBoard) {
+		if (gameBoard.getLayout().fingerprint != layout.fingerprint)
+			throw new IllegalArgumentException("the table was solved for another board");
+		final int slot = slot(gameBoard.getEdges());
+		if (keys[slot] == EMPTY)
+			throw new IllegalArgumentException("the position can't be reached from the board the table was solved for");
+		return slot;
+	}
+
+	/**
+	 * @return the position's slot, or the free slot where it would go
+	 */
+	private int slot(final long edges) {
+		int slot = (int) (edges * 0x9E3779B97F4A7C15L >>> shift);
+		while (keys[slot] != EMPTY && keys[slot] != edges)
+			slot = slot + 1 & keys.length - 1;
+		return slot;
+	}
+
+	private void insert(final long edges) {
+		final int slot = slot(edges);
+		if (keys[slot] == EMPTY) {
+			keys[slot] = edges;
+			size++;
+		}
+	}
+
+	/**
+	 * @return every position one move after one of the layer's, sorted
+	 */
+	private static long[] enumerate(final GameBoard root, final long[] layer, final ExecutorService executor, final int threads)
+			throws InterruptedException {
+		final long allEdges = (1L << root.getLayout().edgeCount) - 1;
+		final List<LongSet> found = new ArrayList<>();
+		forEachChunk(root, layer, executor, threads, board -> {
+			final LongSet children = new LongSet();
+			found.add(children);
+			return edges -> {
+				board.setEdges(edges);
+				if (board.complete())
+					return;
+				for (long open = ~edges & allEdges; open != 0; open &= open - 1) {
+					board.makeMove(Long.numberOfTrailingZeros(open), 1);
+					children.add(board.getEdges());
+					board.unmakeMove();
+				}
+			};
+		});
+		int total = 0;
+		for (final LongSet children : found)
+			total += children.size;
+		final long[] next = new long[total];
+		int length = 0;
+		for (final LongSet children : found)
+			length = children.copyTo(next, length);
+		Arrays.parallelSort(next);
+		int unique = 0;
+		for (int i = 0; i < next.length; i++)
+			if (i == 0 || next[i] != next[i - 1])
+				next[unique++] = next[i];
+		return Arrays.copyOf(next, unique);
+	}
+
+	/**
+	 * value the layer's positions from the next layer's, which are all valued already
+	 */
+	private void value(final GameBoard root, final long[] layer, final ExecutorService executor, final int threads)
+			throws InterruptedException {
+		final long allEdges = (1L << layout.edgeCount) - 1;
+		forEachChunk(root, layer, executor, threads, board -> edges -> {
+			final int slot = slot(edges);
+			if (moves[slot] != UNSOLVED) // also in a later layer
+				return;
+			board.setEdges(edges);
+			if (board.complete()) {
+				values[slot] = 0;
+				moves[slot] = NO_MOVE;
+				return;
+			}
+			final int before = board.getScore();
+			int best = Integer.MIN_VALUE;
+			int bestEdge = NO_MOVE;
+			for (long open = ~edges & allEdges; open != 0; open &= open - 1) {
+				final int edge = Long.numberOfTrailingZeros(open);
+				board.makeMove(edge, 1);
+				final int value = before - board.getScore() - values[slot(board.getEdges())]; // player 1 took whatever closed
+				board.unmakeMove();
+				if (value > best) {
+					best = value;
+					bestEdge = edge;
+				}
+			}
+			values[slot] = (byte) best;
+			moves[slot] = (byte) bestEdge;
+		});
+	}
+
+	/**
+	 * have every thread take chunks of the layer until it runs out, each with its own board to set positions on
+	 * @param work makes the thread's consumer of positions from its board
+	 */
+	private static void forEachChunk(final GameBoard root, final long[] layer, final ExecutorService executor, final int threads,
+									 final Function<GameBoard, LongConsumer> work) throws InterruptedException {
+		final AtomicInteger next = new AtomicInteger();
+		final List<Callable<Void>> tasks = new ArrayList<>();
+		for (int thread = 0; thread < threads; thread++) {
+			final LongConsumer consumer = work.apply(root.clone());
+			tasks.add(() -> {
+				for (int start; (start = next.getAndAdd(CHUNK)) < layer.length; )
+					for (int i = start; i < Math.min(start + CHUNK, layer.length); i++)
+						consumer.accept(layer[i]);
+				return null;
+			});
+		}
+		try {
+			for (final Future<Void> task : executor.invokeAll(tasks))
+				task.get();
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException("solving failed", e.getCause());
+		}
+	}
+
+	/**
+	 * open addressing set of positions, one per thread while enumerating a layer
+	 */
+	private static final class LongSet {
+
+		private long[] slots = new long[1 << 10];
+		private int size;
+
+		{
+			Arrays.fill(slots, EMPTY);
+		}
+
+		void add(final long value) {
+			int slot = (int) (value * 0x9E3779B97F4A7C15L >>> 32) & slots.length - 1;
+			while (slots[slot] != EMPTY) {
+				if (slots[slot] == value)
+					return;
+				slot = slot + 1 & slots.length - 1;
+			}
+			slots[slot] = value;
+			if (++size > slots.length / 2)
+				grow();
+		}
+
+		/**
+		 * @return the index after the last value copied
+		 */
+		int copyTo(final long[] array, int index) {
+			for (final long value : slots)
+				if (value != EMPTY)
+					array[index++] = value;
+			return index;
+		}
+
+		private void grow() {
+			final long[] old = slots;
+			slots = new long[2 * old.length];
+			Arrays.fill(slots, EMPTY);
+			size = 0;
+			for (final long value : old)
+				if (value != EMPTY)
+					add(value);
+		}
+
+	}
+
+}
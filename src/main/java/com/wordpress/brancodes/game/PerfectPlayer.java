@@ -0,0 +1,23 @@
+package com.wordpress.brancodes.game;
+
+/**
+ * plays the best move from a solved table of the board, never searching
+ */
+public class PerfectPlayer extends Player {
+
+	private final PerfectPlayTable table;
+
+	/**
+	 * @param table solved from the board the game starts on, or any position of the game before this player's first move
+	 */
+	public PerfectPlayer(final int playerID, final PerfectPlayTable table) {
+		super(playerID);
+		this.table = table;
+	}
+
+	@Override
+	public void move(final GameBoard gameBoard) {
+		gameBoard.move(gameBoard.child(table.bestMove(gameBoard), getPlayerID()));
+	}
+
+}
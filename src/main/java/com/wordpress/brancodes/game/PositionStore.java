@@ -0,0 +1,136 @@
+package com.wordpress.brancodes.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.wordpress.brancodes.game.TranspositionTable.*;
+
+/**
+ * search results kept in a memory mapped file, so they outlive the move and the process that searched them
+ * <p>
+ * the file is a header and a power of two amount of fixed size records: the position key, a fingerprint of the board's
+ * size and tile values (keys are the same for every game of a size), and the score, depth, bound and move packed like
+ * {@link TranspositionTable} entries. records come in buckets of two, like the table's slots: the first keeps the deepest
+ * search seen for its index and the second is always replaced, so a deep result from an old game that nothing reaches
+ * any more doesn't keep every new one out. pages are only read from disk as they are touched, and stores go straight
+ * into the mapping, the OS writes them back
+ * <p>
+ * like the table, the key and fingerprint are stored xor the entry so threads can share it without locks
+ */
+public final class PositionStore implements Closeable {
+
+	private static final long MAGIC = 0x4D494E494D415831L; // "MINIMAX1"
+	private static final int VERSION = 3; // bump when scores would come out differently, old files are then rejected
+	private static final int HEADER_BYTES = 64;
+	private static final int RECORD_BYTES = 3 * Long.BYTES;
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final long mask;
+
+	/**
+	 * open the store in the file, or create it if there is no file
+	 * @param bytes size of a new store, rounded down to a power of two amount of buckets; an existing file keeps its size
+	 * @throws IOException if the file can't be mapped or isn't a store of this version
+	 */
+	public PositionStore(final Path file, final long bytes) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			final boolean created = channel.size() == 0;
+			final long records = created ? 2 * Long.highestOneBit(Math.max(1, (bytes - HEADER_BYTES) / (2 * RECORD_BYTES)))
+										 : (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+			if (HEADER_BYTES + records * RECORD_BYTES > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("store too large to map: " + bytes);
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + records * RECORD_BYTES);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (created) {
+				buffer.putLong(0, MAGIC);
+				buffer.putInt(8, VERSION);
+				buffer.putLong(16, records);
+			} else if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION || buffer.getLong(16) != records
+					   || Long.bitCount(records) != 1 || records < 2) {
+				throw new IOException("not a position store of version " + VERSION + ": " + file);
+			}
+			mask = records / 2 - 1;
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the packed entry for the position or {@link TranspositionTable#MISS}
+	 */
+	long probe(final long key, final long fingerprint) {
+		final int offset = offset(key);
+		final long deepest = entry(offset, key, fingerprint);
+		return deepest != MISS ? deepest : entry(offset + RECORD_BYTES, key, fingerprint);
+	}
+
+	private long entry(final int offset, final long key, final long fingerprint) {
+		final long entry = get(offset + 2 * Long.BYTES);
+		if (entry != MISS && (get(offset) ^ entry) == key && (get(offset + Long.BYTES) ^ entry) == fingerprint)
+			return entry;
+		return MISS;
+	}
+
+	/**
+	 * the first record keeps the deeper of its result and this one, moving a result of another position it gives up to
+	 * the second; a result it doesn't keep goes in the second, unless the first has a deeper one of the same position
+	 */
+	void store(final long key, final long fingerprint, final int score, final int depth, final int bound, final int move) {
+		final int offset = offset(key);
+		final long entry = pack(score, depth, bound, move);
+		final long deepest = get(offset + 2 * Long.BYTES);
+		final long deepestKey = get(offset) ^ deepest, deepestFingerprint = get(offset + Long.BYTES) ^ deepest;
+		if (deepest == MISS || deepestKey == key && deepestFingerprint == fingerprint) {
+			if (deepest == MISS || depth >= depth(deepest))
+				put(offset, key, fingerprint, entry);
+		} else if (depth >= depth(deepest)) {
+			put(offset + RECORD_BYTES, deepestKey, deepestFingerprint, deepest);
+			put(offset, key, fingerprint, entry);
+		} else {
+			put(offset + RECORD_BYTES, key, fingerprint, entry);
+		}
+	}
+
+	private void put(final int offset, final long key, final long fingerprint, final long entry) {
+		set(offset, key ^ entry);
+		set(offset + Long.BYTES, fingerprint ^ entry);
+		set(offset + 2 * Long.BYTES, entry);
+	}
+
+	private int offset(final long key) {
+		return HEADER_BYTES + (int) ((key ^ key >>> 32) & mask) * 2 * RECORD_BYTES;
+	}
+
+	private long get(final int offset) {
+		return (long) LONGS.getOpaque(buffer, offset);
+	}
+
+	private void set(final int offset, final long word) {
+		LONGS.setOpaque(buffer, offset, word);
+	}
+
+	/**
+	 * write the stores so far back to the file now, instead of whenever the OS does
+	 */
+	public void flush() {
+		buffer.force();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		channel.close();
+	}
+
+}
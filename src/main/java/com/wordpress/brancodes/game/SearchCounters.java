@@ -0,0 +1,126 @@
+package com.wordpress.brancodes.game;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the counts behind {@link SearchStatistics}, kept in adders so threads searching in parallel don't contend on them
+ */
+final class SearchCounters {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private LongAdder[] plyNodes = new LongAdder[0];
+	private long[] iterationStart = new long[0]; // <ply, boards visited before the iteration being searched>
+	private long[] lastIteration = new long[0]; // <ply, boards visited during the last iteration that finished>
+	final LongAdder leafEvaluations = new LongAdder();
+	final LongAdder quiescenceNodes = new LongAdder();
+	final LongAdder endgameSolves = new LongAdder();
+	final LongAdder equivalentMoves = new LongAdder();
+	final LongAdder betaCutoffs = new LongAdder();
+	final LongAdder firstChildCutoffs = new LongAdder();
+	final LongAdder tableProbes = new LongAdder();
+	final LongAdder tableHits = new LongAdder();
+	final LongAdder tableStores = new LongAdder();
+	final LongAdder storeHits = new LongAdder();
+
+	/**
+	 * @param plies deepest ply the next search can reach
+	 */
+	void reset(final int plies) {
+		if (plyNodes.length != plies + 1) {
+			plyNodes = new LongAdder[plies + 1];
+			for (int ply = 0; ply <= plies; ply++)
+				plyNodes[ply] = new LongAdder();
+			iterationStart = new long[plies + 1];
+			lastIteration = new long[plies + 1];
+		} else {
+			for (final LongAdder adder : plyNodes)
+				adder.reset();
+			Arrays.fill(iterationStart, 0);
+			Arrays.fill(lastIteration, 0);
+		}
+		leafEvaluations.reset();
+		quiescenceNodes.reset();
+		endgameSolves.reset();
+		equivalentMoves.reset();
+		betaCutoffs.reset();
+		firstChildCutoffs.reset();
+		tableProbes.reset();
+		tableHits.reset();
+		tableStores.reset();
+		storeHits.reset();
+	}
+
+	void countNode(final int ply) {
+		plyNodes[ply].increment();
+	}
+
+	/**
+	 * the main search starts an iteration, the boards every thread visits from now on count towards it
+	 */
+	void startIteration() {
+		for (int ply = 0; ply < plyNodes.length; ply++)
+			iterationStart[ply] = plyNodes[ply].sum();
+	}
+
+	/**
+	 * the main search finished the iteration it started last
+	 */
+	void finishIteration() {
+		for (int ply = 0; ply < plyNodes.length; ply++)
+			lastIteration[ply] = plyNodes[ply].sum() - iterationStart[ply];
+	}
+
+	long nodes() {
+		long nodes = 0;
+		for (final LongAdder adder : plyNodes)
+			nodes += adder.sum();
+		return nodes;
+	}
+
+	SearchStatistics toStatistics(final int depth, final long cachedBoards, final long cacheCapacity,
+								  final long bytesAllocated, final long elapsedNanos) {
+		return new SearchStatistics(nodes(), leafEvaluations.sum(), quiescenceNodes.sum(), endgameSolves.sum(),
+									equivalentMoves.sum(), betaCutoffs.sum(), firstChildCutoffs.sum(),
+									tableProbes.sum(), tableHits.sum(), tableStores.sum(), storeHits.sum(),
+									lastIteration, depth, cachedBoards, cacheCapacity, bytesAllocated,
+									Duration.ofNanos(elapsedNanos));
+	}
+
+	/**
+	 * @return heap allocated so far by each of the threads, empty if the JVM can't tell
+	 */
+	static Map<Long, Long> allocationSnapshot(final Collection<Long> threadIds) {
+		final Map<Long, Long> snapshot = new HashMap<>();
+		if (!(THREADS instanceof com.sun.management.ThreadMXBean threads) || !threads.isThreadAllocatedMemoryEnabled())
+			return snapshot;
+		final long[] ids = threadIds.stream().mapToLong(Long::longValue).toArray();
+		final long[] bytes = threads.getThreadAllocatedBytes(ids);
+		for (int i = 0; i < ids.length; i++)
+			if (bytes[i] >= 0) // -1 for a thread that already ended
+				snapshot.put(ids[i], bytes[i]);
+		return snapshot;
+	}
+
+	/**
+	 * @return heap allocated by the threads since the snapshot, a thread started since then from nothing,
+	 * -1 if the JVM can't tell
+	 */
+	static long allocatedSince(final Map<Long, Long> before, final Collection<Long> threadIds) {
+		final Map<Long, Long> after = allocationSnapshot(threadIds);
+		if (after.isEmpty())
+			return -1;
+		long allocated = 0;
+		for (final Map.Entry<Long, Long> thread : after.entrySet())
+			allocated += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+		return allocated;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.wordpress.brancodes.game;
+
+import jdk.jfr.*;
+
+/**
+ * one move of {@link MinimaxPlayer} in a flight recording, the same numbers as its {@link SearchStatistics}
+ */
+@Name("com.wordpress.brancodes.Search")
+@Label("Minimax Search")
+@Category("Minimax")
+@Description("One move searched by MinimaxPlayer")
+@StackTrace(false)
+final class SearchEvent extends Event {
+
+	@Label("Player")
+	int player;
+
+	@Label("Depth")
+	int depth;
+
+	@Label("Nodes")
+	long nodes;
+
+	@Label("Leaf Evaluations")
+	long leafEvaluations;
+
+	@Label("Quiescence Nodes")
+	long quiescenceNodes;
+
+	@Label("Endgame Solves")
+	long endgameSolves;
+
+	@Label("Equivalent Moves")
+	long equivalentMoves;
+
+	@Label("Beta Cutoffs")
+	long betaCutoffs;
+
+	@Label("First Child Cutoffs")
+	long firstChildCutoffs;
+
+	@Label("Table Probes")
+	long tableProbes;
+
+	@Label("Table Hits")
+	long tableHits;
+
+	@Label("Table Stores")
+	long tableStores;
+
+	@Label("Store Hits")
+	long storeHits;
+
+	@Label("Effective Branching Factor")
+	@Description("Boards at the deepest ply reached for each board at the ply above")
+	double effectiveBranchingFactor;
+
+	@Label("Cached Boards")
+	long cachedBoards;
+
+	@Label("Cache Capacity")
+	long cacheCapacity;
+
+	@Label("Bytes Allocated")
+	@DataAmount
+	long bytesAllocated;
+
+	void set(final int player, final SearchStatistics statistics) {
+		this.player = player;
+		depth = statistics.depth();
+		nodes = statistics.nodes();
+		leafEvaluations = statistics.leafEvaluations();
+		quiescenceNodes = statistics.quiescenceNodes();
+		endgameSolves = statistics.endgameSolves();
+		equivalentMoves = statistics.equivalentMoves();
+		betaCutoffs = statistics.betaCutoffs();
+		firstChildCutoffs = statistics.firstChildCutoffs();
+		tableProbes = statistics.tableProbes();
+		tableHits = statistics.tableHits();
+		tableStores = statistics.tableStores();
+		storeHits = statistics.storeHits();
+		effectiveBranchingFactor = statistics.effectiveBranchingFactor(statistics.depth());
+		cachedBoards = statistics.cachedBoards();
+		cacheCapacity = statistics.cacheCapacity();
+		bytesAllocated = statistics.bytesAllocated();
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.wordpress.brancodes.game;
+
+import java.time.Duration;
+
+/**
+ * how an asynchronous search of {@link MinimaxPlayer} is going
+ * @param depth plies of the deepest iteration that finished
+ * @param move the best edge it found, numbered as in {@link GameBoard#moveEdge(int, int)}
+ * @param score what it expects the game to end with, the player's points minus the other's
+ * @param nodes boards visited so far, by every thread
+ * @param elapsed since the search started
+ */
+public record SearchProgress(int depth, int move, int score, long nodes, Duration elapsed) {
+
+	public double nodesPerSecond() {
+		return elapsed.isZero() ? 0 : nodes * 1e9 / elapsed.toNanos();
+	}
+
+}
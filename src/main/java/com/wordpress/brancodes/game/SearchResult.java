@@ -0,0 +1,9 @@
+package com.wordpress.brancodes.game;
+
+/**
+ * what a search of {@link MinimaxPlayer} found, without the move being played
+ * @param move the edge to draw, numbered as in {@link GameBoard#moveEdge(int, int)}, or -1 if the player should forfeit
+ * @param score what the search expects the game to end with, the player's points minus the other's
+ * @param statistics what the search did, its depth the deepest iteration that finished
+ */
+public record SearchResult(int move, int score, SearchStatistics statistics) {}
@@ -0,0 +1,78 @@
+package com.wordpress.brancodes.game;
+
+import java.time.Duration;
+
+/**
+ * what one move of {@link MinimaxPlayer} did, counted by every thread that searched
+ * @param nodes boards visited, the root's children and below
+ * @param leafEvaluations boards scored without searching below them, at the depth limit or at the end of the game
+ * @param quiescenceNodes boards past the depth limit that captures led to, not counted in nodes
+ * @param endgameSolves boards scored exactly by the chain endgame solver instead of searching below them
+ * @param equivalentMoves moves not searched because a move leading to the same game was, see {@link MoveEquivalence}
+ * @param betaCutoffs boards whose remaining children were skipped because one of them was already too good
+ * @param firstChildCutoffs of those, the ones where the first child searched was enough, the closer to all the better
+ * the move ordering
+ * @param tableProbes memoization table lookups
+ * @param tableHits lookups that found an entry for the board, deep enough to use or not
+ * @param tableStores memoization table writes
+ * @param storeHits table misses found in the {@link PositionStore} instead, 0 without one
+ * @param plyNodes boards visited at each ply by the deepest iteration that finished, index 1 is the root's children;
+ * the shallower iterations before it, which nodes counts, are left out so the plies compare to each other
+ * @param depth plies of the deepest search that finished
+ * @param cachedBoards boards kept as children of other boards for the next iteration or move, when the move was done
+ * @param cacheCapacity most boards that can be kept under the node cache's memory cap
+ * @param bytesAllocated heap allocated by the searching threads, -1 if the JVM can't measure it
+ * @param elapsed wall clock time of the move
+ */
+public record SearchStatistics(long nodes, long leafEvaluations, long quiescenceNodes, long endgameSolves,
+							   long equivalentMoves, long betaCutoffs, long firstChildCutoffs, long tableProbes,
+							   long tableHits, long tableStores, long storeHits, long[] plyNodes, int depth,
+							   long cachedBoards, long cacheCapacity, long bytesAllocated, Duration elapsed) {
+
+	public SearchStatistics {
+		plyNodes = plyNodes.clone();
+	}
+
+	@Override
+	public long[] plyNodes() {
+		return plyNodes.clone();
+	}
+
+	/**
+	 * @return boards at this ply for each board at the ply above in the deepest iteration that finished,
+	 * 0 past the deepest ply reached
+	 */
+	public double effectiveBranchingFactor(final int ply) {
+		if (ply < 1 || ply >= plyNodes.length || plyNodes[ply - 1] == 0 && ply > 1)
+			return 0;
+		return ply == 1 ? plyNodes[1] : (double) plyNodes[ply] / plyNodes[ply - 1];
+	}
+
+	public double firstChildCutoffRate() {
+		return betaCutoffs == 0 ? 0 : (double) firstChildCutoffs / betaCutoffs;
+	}
+
+	public double tableHitRate() {
+		return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+	}
+
+	public double nodesPerSecond() {
+		return elapsed.isZero() ? 0 : nodes * 1e9 / elapsed.toNanos();
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder branching = new StringBuilder();
+		for (int ply = 1; ply < plyNodes.length && plyNodes[ply] > 0; ply++)
+			branching.append(ply == 1 ? "" : " ").append(String.format("%.2f", effectiveBranchingFactor(ply)));
+		return String.format("depth %d, %d nodes in %d ms (%.0f/s), %d leaves, %d quiescence nodes, "
+							 + "%d endgames solved, %d equivalent moves, %d cutoffs (%.0f%% first child), "
+							 + "table %d probes %d hits %d stores, %d store hits, %d/%d boards cached, "
+							 + "%d bytes allocated, branching [%s]",
+							 depth, nodes, elapsed.toMillis(), nodesPerSecond(), leafEvaluations,
+							 quiescenceNodes, endgameSolves, equivalentMoves, betaCutoffs,
+							 100 * firstChildCutoffRate(), tableProbes, tableHits, tableStores, storeHits,
+							 cachedBoards, cacheCapacity, bytesAllocated, branching);
+	}
+
+}
@@ -2,7 +2,7 @@ package com.wordpress.brancodes.game;
 
 public enum Tile {
 
-	EMPTY(' '), FILL1('1'), FILL2('2'), SEARCHED('x'), UNENCLOSED('o');
+	EMPTY(' '), FILL1('1'), FILL2('2');
 
 	private final char toChar;
 
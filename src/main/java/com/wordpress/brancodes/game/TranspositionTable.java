@@ -0,0 +1,138 @@
+package com.wordpress.brancodes.game;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * preallocated, open addressed memoization table for {@link MinimaxPlayer} keyed by {@link GameBoard#getCanonicalKey()}
+ * mixed with the fingerprint of the tile values and the player's settings, which the position key leaves out
+ * <p>
+ * every bucket has two slots: the first keeps the deepest search seen for its index and the second is always replaced.
+ * entries outlive the move they were searched in, a score only depends on the key, but a new move starts a new
+ * generation and the first slot gives up entries from older ones whatever their depth
+ * an entry is packed into one long and stored next to its key xor the entry, so a slot is only trusted
+ * when both words agree
+ * <p>
+ * threads share it without locks: every word is read and written whole, and a slot torn by two threads writing it
+ * at once fails the xor check and reads as a miss
+ */
+final class TranspositionTable {
+
+	static final int EXACT = 0, LOWER = 1, UPPER = 2; // score is the true value, at least it, or at most it
+	static final long MISS = 0L;
+
+	private static final int ENTRY_BYTES = 2 * Long.BYTES;
+	private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class); // opaque, a long is never split
+
+	private final long[] keys;
+	private final long[] entries;
+	private final int mask;
+	private int generation;
+
+	/**
+	 * @param bytes memory budget, rounded down to a power of two amount of buckets
+	 */
+	TranspositionTable(final long bytes) {
+		final long buckets = Long.highestOneBit(Math.max(1, bytes / (2 * ENTRY_BYTES)));
+		if (buckets > 1 << 29)
+			throw new IllegalArgumentException("table budget too large: " + bytes);
+		mask = (int) buckets - 1;
+		keys = new long[2 * (int) buckets];
+		entries = new long[2 * (int) buckets];
+	}
+
+	/**
+	 * @return the packed entry for the position or {@link #MISS}
+	 */
+	long probe(final long key) {
+		final int i = index(key);
+		final long deepest = get(entries, i);
+		if ((get(keys, i) ^ deepest) == key && deepest != MISS)
+			return deepest;
+		final long recent = get(entries, i + 1);
+		if ((get(keys, i + 1) ^ recent) == key && recent != MISS)
+			return recent;
+		return MISS;
+	}
+
+	/**
+	 * @param depth how many plies were searched below the position
+	 * @param move edge of the best child or -1
+	 */
+	void store(final long key, final int score, final int depth, final int bound, final int move) {
+		final int i = index(key);
+		final long entry = pack(score, depth, bound, move) | (long) generation << 58;
+		final long deepest = get(entries, i);
+		final long deepestKey = get(keys, i) ^ deepest;
+		if (deepestKey == key || deepest == MISS || generation(deepest) != generation) {
+			put(i, key, entry);
+		} else if (depth >= depth(deepest)) {
+			put(i + 1, deepestKey, deepest); // demote the old entry to the always replace slot
+			put(i, key, entry);
+		} else {
+			put(i + 1, key, entry);
+		}
+	}
+
+	private void put(final int i, final long key, final long entry) {
+		SLOTS.setOpaque(keys, i, key ^ entry);
+		SLOTS.setOpaque(entries, i, entry);
+	}
+
+	private static long get(final long[] words, final int i) {
+		return (long) SLOTS.getOpaque(words, i);
+	}
+
+	private int index(final long key) {
+		return ((int) (key ^ key >>> 32) & mask) << 1;
+	}
+
+	/**
+	 * age every entry by one move, only while no search is using the table
+	 */
+	void nextGeneration() {
+		generation = generation + 1 & 0x1F;
+	}
+
+	/**
+	 * only while no search is using the table
+	 */
+	void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(entries, MISS);
+	}
+
+	/**
+	 * score in the low 32 bits, then 8 bits of depth, 2 of bound, 16 of move + 1, 5 left for the table's generation,
+	 * and a set top bit so no entry is a {@link #MISS}
+	 */
+	static long pack(final int score, final int depth, final int bound, final int move) {
+		return (score & 0xFFFFFFFFL)
+			   | (long) Math.min(depth, 0xFF) << 32
+			   | (long) bound << 40
+			   | (long) (move + 1 & 0xFFFF) << 42
+			   | 1L << 63;
+	}
+
+	static int score(final long entry) {
+		return (int) entry;
+	}
+
+	static int depth(final long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+	static int bound(final long entry) {
+		return (int) (entry >>> 40) & 0x3;
+	}
+
+	static int move(final long entry) {
+		return ((int) (entry >>> 42) & 0xFFFF) - 1;
+	}
+
+	private static int generation(final long entry) {
+		return (int) (entry >>> 58) & 0x1F;
+	}
+
+}
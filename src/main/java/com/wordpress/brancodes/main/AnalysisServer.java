@@ -0,0 +1,374 @@
+package com.wordpress.brancodes.main;
+
+import com.wordpress.brancodes.game.GameBoard;
+import com.wordpress.brancodes.game.MinimaxPlayer;
+import com.wordpress.brancodes.game.SearchResult;
+import com.wordpress.brancodes.game.SearchStatistics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * analyzes boards sent over a local socket with a fixed number of searches running at once, however many clients
+ * are connected and whatever they ask for
+ * <p>
+ * a client sends one request per line and gets one line back for each, in the order they finish:
+ * <pre>
+ * analyze &lt;id&gt; &lt;height&gt;x&lt;width&gt; &lt;tile values, row by row&gt; &lt;edges drawn so far in order, or -&gt; depth &lt;plies&gt;|time &lt;ms&gt;
+ * cancel &lt;id&gt;
+ * </pre>
+ * lists are comma separated and edges are numbered as in {@link GameBoard#moveEdge(int, int)}, the players taking
+ * turns from player 1, on a board of at most {@value #MAX_EDGES} edges. the answer is {@code ok <id> move <edge>
+ * score <points ahead> depth <plies> nodes <boards> nps <boards a second> wait <ms queued> ms <ms searched>}, with
+ * move -1 if the player to move should forfeit, or {@code busy}, {@code expired}, {@code cancelled} or
+ * {@code error <message>} with the id
+ * <p>
+ * requests wait in one queue per client and the workers take from the clients in turn, so one client sending many
+ * doesn't hold up the others. once the queue is full new requests are answered busy instead of waiting, a time budget
+ * counts from when the request arrived so waiting eats into the search instead of adding to it, and while the queue is
+ * more than half full depth requests are searched two plies less
+ * <p>
+ * args: port, workers, queued requests, clients (defaults 7380, the processors, 64, 64)
+ */
+public class AnalysisServer {
+
+	private static final long TABLE_BYTES = 16L << 20; // every worker gets its own, split between its two players
+	private static final int MAX_DEPTH = 64;
+	private static final Duration MAX_TIME = Duration.ofSeconds(30); // also for depth requests, so none runs forever
+	private static final int DEGRADED_PLIES = 2;
+	private static final int MAX_EDGES = 1 << 12; // a bigger board's search takes too much of a worker's memory
+
+	private final ServerSocket serverSocket;
+	private final int workers;
+	private final int capacity;
+	private final ExecutorService clients;
+	private final Deque<Client> ready = new ArrayDeque<>(); // clients with requests queued, the next to be served first
+	private int queued;
+
+	/**
+	 * @param port 0 for any free port
+	 * @param capacity most requests waiting for a worker, over all clients
+	 * @param clients most clients connected at once, one more is told busy and disconnected
+	 */
+	public AnalysisServer(final int port, final int workers, final int capacity, final int clients) throws IOException {
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		this.workers = workers;
+		this.capacity = capacity;
+		this.clients = new ThreadPoolExecutor(0, clients, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), daemon("analysis-client"));
+	}
+
+	public static void main(String[] args) throws IOException {
+		final int port = args.length > 0 ? Integer.parseInt(args[0]) : 7380;
+		final int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		final int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+		final int clients = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+		final AnalysisServer server = new AnalysisServer(port, workers, capacity, clients);
+		System.out.printf("listening on %s with %d workers\n", server.serverSocket.getLocalSocketAddress(), workers);
+		server.serve();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * start the workers and accept clients until {@link #close()}
+	 */
+	public void serve() throws IOException {
+		for (int worker = 0; worker < workers; worker++)
+			daemon("analysis-worker").newThread(this::work).start();
+		try {
+			while (true) {
+				final Socket socket = serverSocket.accept();
+				final Client client = new Client(socket);
+				try {
+					clients.execute(client::read);
+				} catch (final RejectedExecutionException e) {
+					client.send("busy - too many clients");
+					socket.close();
+				}
+			}
+		} catch (final IOException e) {
+			if (!serverSocket.isClosed())
+				throw e;
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+
+	public void close() throws IOException {
+		serverSocket.close();
+	}
+
+	private static ThreadFactory daemon(final String name) {
+		return runnable -> {
+			final Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * @return if there was room for it
+	 */
+	private synchronized boolean offer(final Request request) {
+		if (queued >= capacity)
+			return false;
+		if (request.client.queue.isEmpty())
+			ready.add(request.client);
+		request.client.queue.add(request);
+		queued++;
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * @return the oldest request of the client whose turn it is
+	 */
+	private synchronized Request take() throws InterruptedException {
+		while (ready.isEmpty())
+			wait();
+		final Client client = ready.poll();
+		final Request request = client.queue.poll();
+		if (!client.queue.isEmpty())
+			ready.add(client);
+		queued--;
+		request.degraded = queued > capacity / 2;
+		return request;
+	}
+
+	/**
+	 * @return if the request was still queued
+	 */
+	private synchronized boolean remove(final Request request) {
+		if (!request.client.queue.remove(request))
+			return false;
+		if (request.client.queue.isEmpty())
+			ready.remove(request.client);
+		queued--;
+		return true;
+	}
+
+	/**
+	 * search requests one after another with the same two players, one for each side to move, their tables cleared
+	 * before every request instead of allocated again
+	 */
+	private void work() {
+		final MinimaxPlayer[] players = { null, newPlayer(1), newPlayer(2) };
+		while (true) {
+			final Request request;
+			try {
+				request = take();
+			} catch (final InterruptedException e) {
+				return;
+			}
+			try {
+				request.client.send(request.search(players));
+			} catch (final RuntimeException e) {
+				request.client.send("error " + request.id + " " + e.getMessage());
+			} finally {
+				request.client.finish(request);
+			}
+		}
+	}
+
+	private static MinimaxPlayer newPlayer(final int player) {
+		return new MinimaxPlayer(player, MAX_DEPTH, MAX_TIME, TABLE_BYTES / 2);
+	}
+
+	/**
+	 * one connection, with its queued and running requests
+	 */
+	private final class Client {
+
+		private final Socket socket;
+		private final PrintWriter out;
+		private final Deque<Request> queue = new ArrayDeque<>(); // guarded by the server
+		private final Map<String, Request> requests = new HashMap<>(); // queued or searching, by id
+
+		Client(final Socket socket) throws IOException {
+			this.socket = socket;
+			out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * handle the client's lines until it disconnects, then drop whatever it still had queued or searching
+		 */
+		void read() {
+			try (socket; BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+				for (String line; (line = in.readLine()) != null; )
+					if (!line.isBlank())
+						handle(line.trim().split("\\s+"));
+			} catch (final IOException ignored) {
+				// the client went away
+			} finally {
+				final List<Request> left;
+				synchronized (this) {
+					left = new ArrayList<>(requests.values());
+				}
+				for (final Request request : left)
+					cancel(request);
+			}
+		}
+
+		private void handle(final String[] words) {
+			final String id = words.length > 1 ? words[1] : "-";
+			if (words[0].equals("cancel") && words.length == 2) {
+				final Request request;
+				synchronized (this) {
+					request = requests.get(id);
+				}
+				if (request == null)
+					send("error " + id + " no such request");
+				else if (cancel(request))
+					send("cancelled " + id);
+				return;
+			}
+			if (!words[0].equals("analyze") || words.length != 7) {
+				send("error " + id + " expected analyze <id> <height>x<width> <tile values> <edges> depth|time <n>");
+				return;
+			}
+			final Request request;
+			try {
+				request = new Request(this, id, words);
+			} catch (final IllegalArgumentException e) {
+				send("error " + id + " " + e.getMessage());
+				return;
+			}
+			synchronized (this) {
+				if (requests.putIfAbsent(id, request) != null) {
+					send("error " + id + " already queued");
+					return;
+				}
+			}
+			if (!offer(request)) {
+				finish(request);
+				send("busy " + id);
+			}
+		}
+
+		/**
+		 * @return if the request was still queued, otherwise it is answered cancelled when its search stops
+		 */
+		private boolean cancel(final Request request) {
+			request.cancelled = true; // its search, if it's running or about to, stops at its next budget check
+			if (remove(request)) {
+				finish(request);
+				return true;
+			}
+			return false;
+		}
+
+		synchronized void finish(final Request request) {
+			requests.remove(request.id, request);
+		}
+
+		synchronized void send(final String line) {
+			out.println(line);
+		}
+
+	}
+
+	/**
+	 * one board to analyze
+	 */
+	private static final class Request {
+
+		private final Client client;
+		private final String id;
+		private final GameBoard gameBoard;
+		private final int player; // to move
+		private final int depth; // MAX_DEPTH for a time request
+		private final long deadline; // System.nanoTime()
+		private final long arrival = System.nanoTime();
+		private volatile boolean degraded; // the queue was more than half full when it started
+		private volatile boolean cancelled;
+
+		/**
+		 * @param words analyze id size tile-values edges budget-kind budget
+		 * @throws IllegalArgumentException if any of them don't make sense
+		 */
+		Request(final Client client, final String id, final String[] words) {
+			this.client = client;
+			this.id = id;
+			final String[] size = words[2].split("x");
+			if (size.length != 2)
+				throw new IllegalArgumentException("size should be <height>x<width>");
+			final int height = Integer.parseInt(size[0]);
+			final int width = Integer.parseInt(size[1]);
+			final int edges = GameBoard.edgeCount(height, width);
+			if (edges == -1 || edges > MAX_EDGES)
+				throw new IllegalArgumentException("the board should have at least one tile and at most " + MAX_EDGES + " edges");
+			final String[] values = words[3].split(",");
+			final byte[] tileValues = new byte[values.length];
+			for (int tile = 0; tile < values.length; tile++)
+				tileValues[tile] = Byte.parseByte(values[tile]);
+			gameBoard = new GameBoard(height, width, tileValues);
+			int moves = 0;
+			if (!words[4].equals("-"))
+				for (final String edge : words[4].split(","))
+					gameBoard.moveEdge(moves++ % 2 + 1, Integer.parseInt(edge));
+			if (gameBoard.complete())
+				throw new IllegalArgumentException("the game is over");
+			player = moves % 2 + 1;
+			final int budget = Integer.parseInt(words[6]);
+			if (budget <= 0)
+				throw new IllegalArgumentException("the budget should be positive");
+			switch (words[5]) {
+				case "depth" -> {
+					depth = Math.min(budget, MAX_DEPTH);
+					deadline = arrival + MAX_TIME.toNanos();
+				}
+				case "time" -> {
+					depth = MAX_DEPTH;
+					deadline = arrival + Math.min(TimeUnit.MILLISECONDS.toNanos(budget), MAX_TIME.toNanos());
+				}
+				default -> throw new IllegalArgumentException("the budget should be depth or time");
+			}
+		}
+
+		/**
+		 * @param players the worker's, by player id
+		 * @return the answer
+		 */
+		String search(final MinimaxPlayer[] players) {
+			final long start = System.nanoTime();
+			if (cancelled)
+				return "cancelled " + id;
+			if (start >= deadline)
+				return "expired " + id;
+			final int layers = degraded && depth != MAX_DEPTH ? Math.max(1, depth - DEGRADED_PLIES) : depth;
+			final MinimaxPlayer minimax = players[player];
+			minimax.clearTable(); // nothing from the boards of other requests
+			final SearchResult result = minimax.search(gameBoard, layers, Duration.ofNanos(deadline - start), () -> cancelled);
+			if (cancelled)
+				return "cancelled " + id;
+			final SearchStatistics statistics = result.statistics();
+			return String.format("ok %s move %d score %d depth %d nodes %d nps %.0f wait %d ms %d", id,
+								 result.move(), result.score(), statistics.depth(),
+								 statistics.nodes(), statistics.nodesPerSecond(), TimeUnit.NANOSECONDS.toMillis(start - arrival),
+								 statistics.elapsed().toMillis());
+		}
+
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.wordpress.brancodes.main;
+
+import com.wordpress.brancodes.game.GameBoard;
+import com.wordpress.brancodes.game.GameRecord;
+import com.wordpress.brancodes.game.GameRecordReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * replays every game of a record file, as written by {@link Tournament}, and sums up who won and how fast it went
+ * <p>
+ * args: the record file
+ */
+public class ScanRecords {
+
+	public static void main(String[] args) throws IOException {
+		final Path file = Path.of(args[0]);
+		final long start = System.nanoTime();
+		long games = 0, moves = 0;
+		final long[] results = new long[3]; // draws, player 1 wins, player 2 wins
+		try (GameRecordReader reader = new GameRecordReader(file)) {
+			while (reader.hasNext()) {
+				final GameRecord record = reader.next();
+				final GameBoard end = record.end();
+				final int score = end.getPlayerScore(1) - end.getPlayerScore(2);
+				results[record.forfeited() != 0 ? record.forfeited() ^ 3 : score > 0 ? 1 : score < 0 ? 2 : 0]++;
+				games++;
+				moves += record.moves().length;
+			}
+		}
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d games, %d moves, %.1f bytes a game\n", games, moves, (double) Files.size(file) / Math.max(1, games));
+		System.out.printf("player 1 won %d, player 2 won %d, %d drawn\n", results[1], results[2], results[0]);
+		System.out.printf("replayed in %.2f s, %.0f games/s, %.0f moves/s\n", seconds, games / seconds, moves / seconds);
+	}
+
+}
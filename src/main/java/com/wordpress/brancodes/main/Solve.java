@@ -0,0 +1,37 @@
+package com.wordpress.brancodes.main;
+
+import com.wordpress.brancodes.game.GameBoard;
+import com.wordpress.brancodes.game.PerfectPlayTable;
+import com.wordpress.brancodes.game.PerfectPlayer;
+import com.wordpress.brancodes.game.Player;
+
+/**
+ * solves a seeded board exactly, reports how big the table is and how long it took,
+ * then plays the perfect game out with both players reading the table
+ * <p>
+ * args: height, width, seed, threads (defaults 3, 3, 0, the processors)
+ */
+public class Solve {
+
+	public static void main(String[] args) throws InterruptedException {
+		final int height = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		final int width = args.length > 1 ? Integer.parseInt(args[1]) : height;
+		final long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+		final int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		final GameBoard gameBoard = new GameBoard(height, width, seed);
+		System.out.print(gameBoard.toTileValueString());
+		final long start = System.nanoTime();
+		final PerfectPlayTable table = PerfectPlayTable.solve(gameBoard, threads);
+		System.out.printf("%d positions solved in %.1f s on %d threads, %.1f MB\n",
+						  table.size(), (System.nanoTime() - start) / 1e9, threads, table.getBytes() / 1e6);
+		final int[] layerSizes = table.getLayerSizes();
+		for (int layer = 0; layer < layerSizes.length; layer++)
+			System.out.printf("after %2d moves %10d\n", layer, layerSizes[layer]);
+		System.out.printf("player 1 gets %+d points more than player 2 with perfect play\n", table.value(gameBoard));
+		final Player[] players = { null, new PerfectPlayer(1, table), new PerfectPlayer(2, table) };
+		for (int player = 1; !gameBoard.complete(); player ^= 3)
+			players[player].move(gameBoard);
+		System.out.print(gameBoard + gameBoard.gameOverToString());
+	}
+
+}
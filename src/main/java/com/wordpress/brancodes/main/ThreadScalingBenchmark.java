@@ -0,0 +1,57 @@
+package com.wordpress.brancodes.main;
+
+import com.wordpress.brancodes.game.GameBoard;
+import com.wordpress.brancodes.game.MinimaxPlayer;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * how many boards a second the lazy SMP search visits as threads are added, searching the same seeded positions
+ * for a fixed time each
+ * <p>
+ * args: board size, milliseconds per position, most threads (defaults 4, 2000, twice the processors)
+ */
+public class ThreadScalingBenchmark {
+
+	private static final int POSITIONS = 4;
+	private static final int OPENING_MOVES = 6; // so the positions aren't all the empty board
+
+	public static void main(String[] args) {
+		final int boardSize = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		final Duration moveTime = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 2000);
+		final int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : 2 * Runtime.getRuntime().availableProcessors();
+		System.out.printf("%dx%d board, %d ms per position, %d processors\n",
+						  boardSize, boardSize, moveTime.toMillis(), Runtime.getRuntime().availableProcessors());
+		new MinimaxPlayer(2, moveTime).move(position(boardSize, -1)); // warm up the JIT so it isn't counted against 1 thread
+		System.out.println("threads     nodes/s   speedup");
+		double baseline = 0;
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			long nodes = 0;
+			long nanos = 0;
+			try (MinimaxPlayer player = new MinimaxPlayer(2, moveTime, 0, 64L << 20, threads, MinimaxPlayer.Parallelism.LAZY_SMP)) {
+				for (int seed = 0; seed < POSITIONS; seed++) {
+					final GameBoard gameBoard = position(boardSize, seed);
+					player.clearTable(); // so nothing carries over from the positions before
+					final long start = System.nanoTime();
+					player.move(gameBoard);
+					nanos += System.nanoTime() - start;
+					nodes += player.getNodeCount();
+				}
+			}
+			final double nodesPerSecond = nodes * 1e9 / nanos;
+			if (threads == 1)
+				baseline = nodesPerSecond;
+			System.out.printf("%7d %11.0f %8.2fx\n", threads, nodesPerSecond, nodesPerSecond / baseline);
+		}
+	}
+
+	private static GameBoard position(final int boardSize, final long seed) {
+		final GameBoard gameBoard = new GameBoard(boardSize, boardSize, seed);
+		final Random random = new Random(seed);
+		for (int i = 0; i < OPENING_MOVES && !gameBoard.complete(); i++)
+			gameBoard.move(i % 2 + 1, random.nextInt(gameBoard.getOpenEdgeAmount()));
+		return gameBoard;
+	}
+
+}
@@ -0,0 +1,238 @@
+package com.wordpress.brancodes.main;
+
+import com.wordpress.brancodes.game.GameBoard;
+import com.wordpress.brancodes.game.GameRecord;
+import com.wordpress.brancodes.game.GameRecordWriter;
+import com.wordpress.brancodes.game.MinimaxPlayer;
+import com.wordpress.brancodes.game.MonteCarloPlayer;
+import com.wordpress.brancodes.game.Player;
+import com.wordpress.brancodes.game.RandomPlayer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * plays every pair of entrants against each other on seeded boards without printing them, several games at once,
+ * and sums up who won by how much and how long their moves took
+ * <p>
+ * args: games per pair and board size, board sizes, threads, a file to record the games in
+ * (defaults 20, 3,4, the processors, none)
+ */
+public class Tournament {
+
+	/**
+	 * @param player makes the entrant as the given player, a new one each game since players can keep state between moves
+	 */
+	public record Entrant(String name, IntFunction<Player> player) {}
+
+	private static final long TABLE_BYTES = 4L << 20; // many games run at once
+
+	private final List<Entrant> entrants;
+	private final int[] sizes;
+	private final int games;
+	private final int threads;
+	private GameRecordWriter records; // null for none
+
+	/**
+	 * @param games games each pair plays on each board size, each board is played once with either entrant going first
+	 */
+	public Tournament(final List<Entrant> entrants, final int[] sizes, final int games, final int threads) {
+		this.entrants = entrants;
+		this.sizes = sizes;
+		this.games = games;
+		this.threads = threads;
+	}
+
+	/**
+	 * also write every game to the records, in the order they were scheduled
+	 * @param records null to stop recording
+	 */
+	public void setRecords(final GameRecordWriter records) {
+		this.records = records;
+	}
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException, IOException {
+		final int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		final int[] sizes = args.length > 1 ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray() : new int[] { 3, 4 };
+		final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		final List<Entrant> entrants = List.of(new Entrant("random", RandomPlayer::new),
+											   new Entrant("minimax-2", id -> new MinimaxPlayer(id, 2, TABLE_BYTES)),
+											   new Entrant("minimax-4", id -> new MinimaxPlayer(id, 4, TABLE_BYTES)),
+											   new Entrant("minimax-6", id -> new MinimaxPlayer(id, 6, TABLE_BYTES)),
+											   new Entrant("mcts-2000", id -> new MonteCarloPlayer(id, 2000)));
+		final Tournament tournament = new Tournament(entrants, sizes, games, threads);
+		try (GameRecordWriter records = args.length > 3 ? new GameRecordWriter(Path.of(args[3])) : null) {
+			tournament.setRecords(records);
+			final long start = System.nanoTime();
+			final Results results = tournament.run();
+			System.out.print(results);
+			System.out.printf("%d games in %.1f s on %d threads\n", results.gamesPlayed(), (System.nanoTime() - start) / 1e9, threads);
+		}
+	}
+
+	/**
+	 * play every game, {@code threads} at a time
+	 */
+	public Results run() throws InterruptedException, ExecutionException, IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<Game>> played = new ArrayList<>();
+			for (int a = 0; a < entrants.size(); a++)
+				for (int b = a + 1; b < entrants.size(); b++)
+					for (final int size : sizes)
+						for (int seed = 0; seed < games; seed++) {
+							final Entrant first = seed % 2 == 0 ? entrants.get(a) : entrants.get(b);
+							final Entrant second = seed % 2 == 0 ? entrants.get(b) : entrants.get(a);
+							final long boardSeed = seed / 2; // the same board both ways round, and for every pair
+							played.add(executor.submit(() -> play(first, second, size, boardSeed)));
+						}
+			final Results results = new Results();
+			for (final Future<Game> game : played) {
+				results.add(game.get());
+				if (records != null)
+					records.write(game.get().record());
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * one whole game, until the board is full or a player forfeits
+	 */
+	private static Game play(final Entrant first, final Entrant second, final int size, final long seed) {
+		final GameBoard gameBoard = new GameBoard(size, size, seed);
+		final GameBoard startingBoard = gameBoard.clone();
+		final List<Integer> edges = new ArrayList<>();
+		final Entrant[] entrants = { null, first, second };
+		final Player[] players = { null, first.player().apply(1), second.player().apply(2) };
+		final List<List<Long>> moveNanos = List.of(List.of(), new ArrayList<>(), new ArrayList<>());
+		final long[] nodes = new long[3];
+		int player = 1;
+		while (true) {
+			final long start = System.nanoTime();
+			players[player].move(gameBoard);
+			moveNanos.get(player).add(System.nanoTime() - start);
+			if (players[player] instanceof MinimaxPlayer minimax)
+				nodes[player] += minimax.getNodeCount();
+			if (gameBoard.didForfeit())
+				return new Game(entrants, size, gameBoard, player, moveNanos, nodes, GameRecord.of(startingBoard, edges, player));
+			edges.add(gameBoard.getMove());
+			if (gameBoard.complete())
+				return new Game(entrants, size, gameBoard, 0, moveNanos, nodes, GameRecord.of(startingBoard, edges, 0));
+			player ^= 3;
+		}
+	}
+
+	/**
+	 * @param forfeited the player that gave up and so lost, or 0 if the game was played out
+	 */
+	private record Game(Entrant[] entrants, int size, GameBoard gameBoard, int forfeited, List<List<Long>> moveNanos, long[] nodes,
+						GameRecord record) {
+
+		/**
+		 * @return positive if the player won, negative if it lost, 0 for a draw
+		 */
+		int result(final int player) {
+			if (forfeited != 0)
+				return forfeited == player ? -1 : 1;
+			return Integer.signum(margin(player));
+		}
+
+		int margin(final int player) {
+			return gameBoard.getPlayerScore(player) - gameBoard.getPlayerScore(player ^ 3);
+		}
+
+	}
+
+	/**
+	 * win, loss and draw counts of each pair on each board size, from the side of the entrant listed first,
+	 * and move times and search speed of each entrant over all its games
+	 */
+	public static class Results {
+
+		private final Map<String, Pairing> pairings = new LinkedHashMap<>();
+		private final Map<String, Moves> moves = new LinkedHashMap<>();
+		private int gamesPlayed;
+
+		private void add(final Game game) {
+			final Entrant[] entrants = game.entrants();
+			final int a = entrants[1].name().compareTo(entrants[2].name()) < 0 ? 1 : 2; // same side whoever went first
+			final String key = entrants[a].name() + " vs " + entrants[a ^ 3].name() + " " + game.size() + "x" + game.size();
+			pairings.computeIfAbsent(key, k -> new Pairing()).add(game.result(a), game.margin(a));
+			for (int player = 1; player <= 2; player++)
+				moves.computeIfAbsent(entrants[player].name(), k -> new Moves()).add(game.moveNanos().get(player), game.nodes()[player]);
+			gamesPlayed++;
+		}
+
+		public int gamesPlayed() {
+			return gamesPlayed;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(String.format("%-30s %6s %5s %5s %5s %8s\n", "pairing", "games", "won", "lost", "drawn", "margin"));
+			pairings.forEach((key, pairing) -> sb.append(String.format("%-30s %6d %5d %5d %5d %+8.2f\n",
+				key, pairing.games, pairing.won, pairing.lost, pairing.drawn, (double) pairing.margin / pairing.games)));
+			sb.append('\n');
+			sb.append(String.format("%-12s %7s %9s %9s %9s %9s %12s\n", "entrant", "moves", "p50 ms", "p90 ms", "p99 ms", "max ms", "nodes/s"));
+			moves.forEach((name, entrant) -> {
+				final long[] sorted = entrant.nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+				final long total = Arrays.stream(sorted).sum();
+				sb.append(String.format("%-12s %7d %9.3f %9.3f %9.3f %9.3f %12s\n", name, sorted.length,
+					percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), percentile(sorted, 1),
+					entrant.nodes == 0 ? "-" : String.format("%.0f", entrant.nodes * 1e9 / total)));
+			});
+			return sb.toString();
+		}
+
+		/**
+		 * nearest rank, in milliseconds
+		 */
+		private static double percentile(final long[] sorted, final double fraction) {
+			if (sorted.length == 0)
+				return 0;
+			return sorted[Math.max(0, (int) Math.ceil(fraction * sorted.length) - 1)] / 1e6;
+		}
+
+		private static class Pairing {
+			private int games, won, lost, drawn;
+			private long margin;
+
+			private void add(final int result, final int margin) {
+				games++;
+				if (result > 0)
+					won++;
+				else if (result < 0)
+					lost++;
+				else
+					drawn++;
+				this.margin += margin;
+			}
+		}
+
+		private static class Moves {
+			private final List<Long> nanos = new ArrayList<>();
+			private long nodes;
+
+			private void add(final List<Long> nanos, final long nodes) {
+				this.nanos.addAll(nanos);
+				this.nodes += nodes;
+			}
+		}
+
+	}
+
+}
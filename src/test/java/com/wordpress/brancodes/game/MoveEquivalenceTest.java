@@ -0,0 +1,92 @@
+package com.wordpress.brancodes.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * searches to the end of the game from positions reached by random play, once merging equivalent moves and once trying
+ * every move: both scores are the solved value, the merged search's move gets it, and merging searches fewer boards
+ */
+class MoveEquivalenceTest {
+
+	private static final long TABLE_BYTES = 16L << 20;
+
+	@Test
+	void keepsScoresExactOn2x3() throws InterruptedException {
+		check(2, 3, 0, 150, 17);
+		check(2, 3, 5, 150, 17);
+	}
+
+	/**
+	 * solving 3x3 takes about a minute and a few hundred MB, run with -PslowTests=true
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "slowTests", matches = "true")
+	void keepsScoresExactOn3x3() throws InterruptedException {
+		check(3, 3, 0, 100, 12);
+	}
+
+	/**
+	 * @param mostOpen open edges left in the positions checked, few enough to search them to the end
+	 */
+	private static void check(final int height, final int width, final long seed, final int positions, final int mostOpen)
+			throws InterruptedException {
+		final GameBoard start = new GameBoard(height, width, seed);
+		final PerfectPlayTable table = PerfectPlayTable.solve(start, Runtime.getRuntime().availableProcessors());
+		final MinimaxPlayer[] merging = { null, player(1, start, true), player(2, start, true) };
+		final MinimaxPlayer[] everyMove = { null, player(1, start, false), player(2, start, false) };
+		final Random random = new Random(seed);
+		long mergedNodes = 0;
+		long allNodes = 0;
+		for (int i = 0; i < positions; i++) {
+			final GameBoard gameBoard = start.clone();
+			final int edges = gameBoard.getOpenEdgeAmount();
+			final int moves = Math.max(0, edges - mostOpen) + random.nextInt(Math.min(edges, mostOpen));
+			int player = 1;
+			for (int move = 0; move < moves && !gameBoard.complete(); move++, player ^= 3)
+				gameBoard.move(player, random.nextInt(gameBoard.getOpenEdgeAmount()));
+			if (gameBoard.complete())
+				continue;
+			final SearchResult merged = search(merging[player], gameBoard);
+			final SearchResult all = search(everyMove[player], gameBoard);
+			mergedNodes += merged.statistics().nodes();
+			allNodes += all.statistics().nodes();
+			final int expected = table.value(gameBoard) + lead(gameBoard, player); // the search's score is of the whole game
+			assertEquals(expected, merged.score(), gameBoard::toString);
+			assertEquals(expected, all.score(), gameBoard::toString);
+			if (merged.move() != -1) { // otherwise it forfeits, and the score is what it would have lost by
+				final GameBoard child = gameBoard.child(merged.move(), player);
+				assertEquals(expected, lead(child, player) - table.value(child), () -> "move " + merged.move() + " of\n" + gameBoard);
+			}
+		}
+		assertTrue(mergedNodes < allNodes, mergedNodes + " boards merging, " + allNodes + " trying every move");
+	}
+
+	private static MinimaxPlayer player(final int player, final GameBoard gameBoard, final boolean merge) {
+		final MinimaxPlayer minimax = new MinimaxPlayer(player, gameBoard.getMaxDepth(), TABLE_BYTES);
+		minimax.setMergeEquivalentMoves(merge);
+		return minimax;
+	}
+
+	/**
+	 * to the end of the game, with nothing from the positions before
+	 */
+	private static SearchResult search(final MinimaxPlayer minimax, final GameBoard gameBoard) {
+		minimax.clearTable();
+		return minimax.search(gameBoard, gameBoard.getOpenEdgeAmount(), Duration.ZERO);
+	}
+
+	/**
+	 * @return how many points the player has more than the other
+	 */
+	private static int lead(final GameBoard gameBoard, final int player) {
+		return gameBoard.getPlayerScore(player) - gameBoard.getPlayerScore(player ^ 3);
+	}
+
+}
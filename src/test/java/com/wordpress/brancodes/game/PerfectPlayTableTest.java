@@ -0,0 +1,94 @@
+package com.wordpress.brancodes.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * the table against a plain negamax over every move, from positions reached by random play: the value of each
+ * position, and that its best move gets that value
+ */
+class PerfectPlayTableTest {
+
+	private final Map<GameBoard, Integer> values = new HashMap<>(); // by drawn edges, from the player to move's side
+
+	@Test
+	void matchesNegamaxOn2x2() throws InterruptedException {
+		check(2, 2, 0, 500, 12);
+	}
+
+	@Test
+	void matchesNegamaxOn2x3() throws InterruptedException {
+		check(2, 3, 0, 1000, 17);
+		check(2, 3, 7, 1000, 17);
+	}
+
+	/**
+	 * solving 3x3 takes about a minute and a few hundred MB, run with -PslowTests=true
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "slowTests", matches = "true")
+	void matchesNegamaxOn3x3() throws InterruptedException {
+		check(3, 3, 0, 300, 14);
+	}
+
+	/**
+	 * @param mostOpen open edges left in the positions checked, few enough for the negamax to search them all
+	 */
+	private void check(final int height, final int width, final long seed, final int positions, final int mostOpen)
+			throws InterruptedException {
+		final GameBoard start = new GameBoard(height, width, seed);
+		final PerfectPlayTable table = PerfectPlayTable.solve(start, Runtime.getRuntime().availableProcessors());
+		final Random random = new Random(seed);
+		values.clear();
+		for (int i = 0; i < positions; i++) {
+			final GameBoard gameBoard = start.clone();
+			final int edges = gameBoard.getOpenEdgeAmount();
+			final int moves = Math.max(0, edges - mostOpen) + random.nextInt(Math.min(edges, mostOpen) + 1);
+			int player = 1;
+			for (int move = 0; move < moves && !gameBoard.complete(); move++, player ^= 3)
+				gameBoard.move(player, random.nextInt(gameBoard.getOpenEdgeAmount()));
+			final int expected = negamax(gameBoard, player);
+			assertEquals(expected, table.value(gameBoard), gameBoard::toString);
+			final int bestMove = table.bestMove(gameBoard);
+			if (bestMove == -1) {
+				assertTrue(gameBoard.complete(), gameBoard::toString);
+				continue;
+			}
+			final GameBoard child = gameBoard.child(bestMove, player);
+			assertEquals(expected, gain(gameBoard, child, player) - negamax(child, player ^ 3),
+						 () -> "move " + bestMove + " of\n" + gameBoard);
+		}
+	}
+
+	/**
+	 * @return how many points more than the other player the player to move gets for the rest of the game
+	 */
+	private int negamax(final GameBoard gameBoard, final int player) {
+		if (gameBoard.complete())
+			return 0;
+		final Integer known = values.get(gameBoard);
+		if (known != null)
+			return known;
+		int best = Integer.MIN_VALUE;
+		for (final GameBoard child : gameBoard.expand(player))
+			best = Math.max(best, gain(gameBoard, child, player) - negamax(child, player ^ 3));
+		values.put(gameBoard.clone(), best); // a clone doesn't hold on to the children
+		return best;
+	}
+
+	/**
+	 * @return points the move got the player more than the other
+	 */
+	private static int gain(final GameBoard gameBoard, final GameBoard child, final int player) {
+		return child.getPlayerScore(player) - gameBoard.getPlayerScore(player)
+			   - child.getPlayerScore(player ^ 3) + gameBoard.getPlayerScore(player ^ 3);
+	}
+
+}